@@ -0,0 +1,350 @@
+package code.jesse.palette.compiler;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.io.FileOutputStream;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+/**
+ * 编译期绑定代码生成器.
+ * <p/>
+ * 扫描res目录下layout中的bindValue, 按根节点上bindModel声明的Model类型解析属性路径, 为每个layout生成一个
+ * 不使用反射的LayoutBinder, 以及一个注册全部Binder的PaletteBinders类. 路径拼写错误会直接导致生成失败,
+ * 而不是在运行时每次bind都失败.
+ * <p/>
+ * 同名layout的所有配置(layout, layout-land等)共用一个Binder, 因此都会被检查: 它们必须声明相同的bindModel,
+ * 同一个id在不同配置下必须绑定相同的bindValue, 否则生成失败.
+ * <p/>
+ * 一般通过palette.gradle在应用的javaCompile之后、dex之前执行, 也可以直接运行:
+ * <pre>
+ * java -jar palette-compiler.jar --res src/main/res --classpath build/intermediates/classes/debug
+ *     --r-class com.example.R --package com.example.binding --out build/generated/source/palette
+ * </pre>
+ *
+ * @author zhulantian@gmail.com
+ */
+public class BinderGenerator {
+
+    private static final String INDENT = "    ";
+
+    private final List<File> mResDirs = new ArrayList<>();
+    private final ClassLoader mClassLoader;
+    private final String mRClassName;
+    private final String mPackageName;
+    private final File mOutDir;
+
+    public BinderGenerator(List<File> resDirs, ClassLoader classLoader, String rClassName,
+                           String packageName, File outDir) {
+        mResDirs.addAll(resDirs);
+        mClassLoader = classLoader;
+        mRClassName = rClassName;
+        mPackageName = packageName;
+        mOutDir = outDir;
+    }
+
+    public static void main(String[] args) throws Exception {
+        List<File> resDirs = new ArrayList<>();
+        List<URL> classpath = new ArrayList<>();
+        String rClassName = null;
+        String packageName = null;
+        File outDir = null;
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--res":
+                    resDirs.add(new File(value));
+                    break;
+                case "--classpath":
+                    for (String entry : value.split(File.pathSeparator)) {
+                        classpath.add(new File(entry).toURI().toURL());
+                    }
+                    break;
+                case "--r-class":
+                    rClassName = value;
+                    break;
+                case "--package":
+                    packageName = value;
+                    break;
+                case "--out":
+                    outDir = new File(value);
+                    break;
+                default:
+                    usage("Unknown option " + args[i]);
+            }
+        }
+        if (resDirs.isEmpty() || rClassName == null || packageName == null || outDir == null) {
+            usage("Missing options");
+        }
+        ClassLoader loader = new URLClassLoader(classpath.toArray(new URL[classpath.size()]),
+                BinderGenerator.class.getClassLoader());
+        List<String> errors = new BinderGenerator(resDirs, loader, rClassName, packageName, outDir)
+                .generate();
+        for (String error : errors) {
+            System.err.println("error: " + error);
+        }
+        if (!errors.isEmpty()) {
+            System.exit(1);
+        }
+    }
+
+    private static void usage(String message) {
+        System.err.println(message);
+        System.err.println("Usage: BinderGenerator --res <dir> [--res <dir>...] --classpath <path>"
+                + " --r-class <R class> --package <package> --out <dir>");
+        System.exit(2);
+    }
+
+    /**
+     * 生成全部Binder.
+     *
+     * @return 错误信息, 为空表示生成成功.
+     */
+    public List<String> generate() throws Exception {
+        List<String> errors = new ArrayList<>();
+        List<String> binderClasses = new ArrayList<>();
+        List<String> layoutNames = new ArrayList<>();
+        LayoutParser parser = new LayoutParser();
+
+        // layoutName -> 各个配置下的同名layout
+        Map<String, List<LayoutBinding>> layouts = new TreeMap<>();
+        for (File layoutFile : findLayouts()) {
+            LayoutBinding layout;
+            try {
+                layout = parser.parse(layoutFile, mRClassName);
+            } catch (BindingException e) {
+                errors.add(e.getMessage());
+                continue;
+            }
+            List<LayoutBinding> variants = layouts.get(layout.layoutName);
+            if (variants == null) {
+                variants = new ArrayList<>();
+                layouts.put(layout.layoutName, variants);
+            }
+            variants.add(layout);
+        }
+        for (Map.Entry<String, List<LayoutBinding>> entry : layouts.entrySet()) {
+            String className = binderClassName(entry.getKey());
+            String source = generateBinder(className, entry.getValue(), errors);
+            if (source != null) {
+                write(className, source);
+                binderClasses.add(className);
+                layoutNames.add(entry.getKey());
+            }
+        }
+        if (errors.isEmpty()) {
+            write("PaletteBinders", generateRegistry(binderClasses, layoutNames));
+        }
+        return errors;
+    }
+
+    private List<File> findLayouts() {
+        List<File> layouts = new ArrayList<>();
+        for (File resDir : mResDirs) {
+            File[] dirs = resDir.listFiles();
+            if (dirs == null) {
+                continue;
+            }
+            Arrays.sort(dirs);
+            for (File dir : dirs) {
+                if (!dir.isDirectory()
+                        || !(dir.getName().equals("layout") || dir.getName().startsWith("layout-"))) {
+                    continue;
+                }
+                File[] files = dir.listFiles();
+                if (files == null) {
+                    continue;
+                }
+                Arrays.sort(files);
+                for (File file : files) {
+                    if (file.getName().endsWith(".xml")) {
+                        layouts.add(file);
+                    }
+                }
+            }
+        }
+        return layouts;
+    }
+
+    /**
+     * 为一个layout的所有配置生成一个Binder.
+     *
+     * @return Binder的代码, 不需要生成或者有错误时返回null.
+     */
+    private String generateBinder(String className, List<LayoutBinding> variants, List<String> errors) {
+        LayoutBinding first = variants.get(0);
+        boolean hasViews = false;
+        for (LayoutBinding variant : variants) {
+            if (!equals(first.modelClassName, variant.modelClassName)) {
+                errors.add(variant.getPath() + ": bindModel " + variant.modelClassName
+                        + " differs from " + first.modelClassName + " in " + first.getPath());
+                return null;
+            }
+            hasViews |= !variant.views.isEmpty();
+        }
+        if (first.modelClassName == null || !hasViews) {
+            return null;
+        }
+        Class<?> modelClass;
+        String modelTypeName;
+        try {
+            modelClass = Class.forName(first.modelClassName, false, mClassLoader);
+            modelTypeName = PathCompiler.typeName(modelClass);
+        } catch (ClassNotFoundException e) {
+            errors.add(first.getPath() + ": bindModel class " + first.modelClassName + " not found");
+            return null;
+        } catch (BindingException e) {
+            errors.add(first.getPath() + ": bindModel " + e.getMessage());
+            return null;
+        }
+
+        // 合并所有配置中的View, 同一个id只生成一次
+        Map<String, LayoutBinding.ViewBinding> views = new LinkedHashMap<>();
+        Map<String, LayoutBinding> owners = new HashMap<>();
+        int errorCount = errors.size();
+        for (LayoutBinding variant : variants) {
+            Set<String> ids = new HashSet<>();
+            for (LayoutBinding.ViewBinding view : variant.views) {
+                if (!ids.add(view.idReference)) {
+                    errors.add(variant.getPath() + ": duplicate bindValue on id " + view.idName);
+                    continue;
+                }
+                LayoutBinding.ViewBinding existing = views.get(view.idReference);
+                if (existing == null) {
+                    views.put(view.idReference, view);
+                    owners.put(view.idReference, variant);
+                } else if (!existing.bindValue.equals(view.bindValue)) {
+                    errors.add(variant.getPath() + ": id " + view.idName + " binds '" + view.bindValue
+                            + "' but " + owners.get(view.idReference).getPath() + " binds '"
+                            + existing.bindValue + "'");
+                }
+            }
+        }
+
+        StringBuilder fields = new StringBuilder();
+        StringBuilder lookup = new StringBuilder();
+        Set<String> constants = new HashSet<>();
+        for (LayoutBinding.ViewBinding view : views.values()) {
+            if (!PathCompiler.isPath(view.bindValue)) {
+                continue; // 非属性路径的表达式仍在运行时解析
+            }
+            String body;
+            try {
+                body = PathCompiler.compile(modelClass, view.bindValue, INDENT + INDENT + INDENT);
+            } catch (BindingException e) {
+                errors.add(owners.get(view.idReference).getPath() + ": " + e.getMessage());
+                continue;
+            }
+            if (body == null) {
+                continue; // 路径经过非public的字段, 仍在运行时通过反射读取
+            }
+            String constant = "EXPRESSION_" + view.idName.toUpperCase(Locale.US);
+            while (!constants.add(constant)) {
+                constant += "_";
+            }
+            fields.append(INDENT).append("// ").append(view.bindValue).append('\n')
+                    .append(INDENT).append("private static final Expression ").append(constant)
+                    .append(" = new Expression() {\n")
+                    .append(INDENT).append(INDENT).append("@Override\n")
+                    .append(INDENT).append(INDENT)
+                    .append("public Object evaluate(Object model) {\n")
+                    .append(body)
+                    .append(INDENT).append(INDENT).append("}\n")
+                    .append(INDENT).append("};\n\n");
+            lookup.append(INDENT).append(INDENT).append("if (viewId == ")
+                    .append(view.idReference).append(") {\n")
+                    .append(INDENT).append(INDENT).append(INDENT).append("return ")
+                    .append(constant).append(";\n")
+                    .append(INDENT).append(INDENT).append("}\n");
+        }
+        if (errors.size() > errorCount) {
+            return null;
+        }
+
+        return header(first.layoutName)
+                + "import code.jesse.palette.bind.LayoutBinder;\n"
+                + "import code.jesse.palette.bind.resolver.Expression;\n\n"
+                + "public final class " + className + " implements LayoutBinder {\n\n"
+                + fields
+                + INDENT + "@Override\n"
+                + INDENT + "public Class<?> getModelClass() {\n"
+                + INDENT + INDENT + "return " + modelTypeName + ".class;\n"
+                + INDENT + "}\n\n"
+                + INDENT + "@Override\n"
+                + INDENT + "public Expression getExpression(int viewId) {\n"
+                + lookup
+                + INDENT + INDENT + "return null;\n"
+                + INDENT + "}\n"
+                + "}\n";
+    }
+
+    private static boolean equals(Object a, Object b) {
+        return a == null ? b == null : a.equals(b);
+    }
+
+    private String generateRegistry(List<String> binderClasses, List<String> layoutNames) {
+        StringBuilder registrations = new StringBuilder();
+        for (int i = 0; i < binderClasses.size(); ++i) {
+            registrations.append(INDENT).append(INDENT).append("LayoutBinders.register(")
+                    .append(mRClassName).append(".layout.").append(layoutNames.get(i))
+                    .append(", new ").append(binderClasses.get(i)).append("());\n");
+        }
+        return header(null)
+                + "import code.jesse.palette.bind.LayoutBinders;\n\n"
+                + "public final class PaletteBinders {\n\n"
+                + INDENT + "private PaletteBinders() {\n"
+                + INDENT + "}\n\n"
+                + INDENT + "public static void registerAll() {\n"
+                + registrations
+                + INDENT + "}\n"
+                + "}\n";
+    }
+
+    private String header(String layoutName) {
+        return "// Generated by palette-compiler"
+                + (layoutName == null ? "" : " from layout " + layoutName)
+                + ". Do not modify.\n"
+                + "package " + mPackageName + ";\n\n";
+    }
+
+    private void write(String className, String source) throws IOException {
+        File dir = new File(mOutDir, mPackageName.replace('.', File.separatorChar));
+        if (!dir.isDirectory() && !dir.mkdirs()) {
+            throw new IOException("Can't create " + dir);
+        }
+        Writer writer = new OutputStreamWriter(
+                new FileOutputStream(new File(dir, className + ".java")), "UTF-8");
+        try {
+            writer.write(source);
+        } finally {
+            writer.close();
+        }
+    }
+
+    private static String binderClassName(String layoutName) {
+        StringBuilder name = new StringBuilder();
+        boolean upper = true;
+        for (int i = 0; i < layoutName.length(); ++i) {
+            char c = layoutName.charAt(i);
+            if (c == '_') {
+                upper = true;
+            } else {
+                name.append(upper ? Character.toUpperCase(c) : c);
+                upper = false;
+            }
+        }
+        return name.append("Binder").toString();
+    }
+}
@@ -0,0 +1,15 @@
+package code.jesse.palette.compiler;
+
+/**
+ * layout中的绑定声明无法生成代码, 例如路径拼写错误、字段不可访问等.
+ *
+ * @author zhulantian@gmail.com
+ */
+public class BindingException extends Exception {
+
+    private static final long serialVersionUID = 1L;
+
+    public BindingException(String message) {
+        super(message);
+    }
+}
@@ -0,0 +1,63 @@
+package code.jesse.palette.compiler;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 从一个layout文件中解析出的绑定声明.
+ *
+ * @author zhulantian@gmail.com
+ */
+public class LayoutBinding {
+
+    /**
+     * layout所在的资源目录名, eg: layout, layout-land.
+     */
+    public final String configuration;
+
+    /**
+     * layout文件名, 不含扩展名, eg: feed_card.
+     */
+    public final String layoutName;
+
+    /**
+     * 根节点上bindModel声明的Model类名, 未声明时为null.
+     */
+    public final String modelClassName;
+
+    public final List<ViewBinding> views = new ArrayList<>();
+
+    public LayoutBinding(String configuration, String layoutName, String modelClassName) {
+        this.configuration = configuration;
+        this.layoutName = layoutName;
+        this.modelClassName = modelClassName;
+    }
+
+    /**
+     * @return 用于错误信息的相对路径, eg: layout-land/feed_card.xml.
+     */
+    public String getPath() {
+        return configuration + "/" + layoutName + ".xml";
+    }
+
+    /**
+     * 一个View上的bindValue声明.
+     */
+    public static class ViewBinding {
+
+        /**
+         * 生成代码中引用id的方式, eg: R.id.title, android.R.id.text1.
+         */
+        public final String idReference;
+
+        public final String idName;
+
+        public final String bindValue;
+
+        public ViewBinding(String idReference, String idName, String bindValue) {
+            this.idReference = idReference;
+            this.idName = idName;
+            this.bindValue = bindValue;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package code.jesse.palette.compiler;
+
+import org.w3c.dom.Attr;
+import org.w3c.dom.Element;
+import org.w3c.dom.NamedNodeMap;
+import org.w3c.dom.Node;
+import org.w3c.dom.NodeList;
+
+import java.io.File;
+
+import javax.xml.parsers.DocumentBuilder;
+import javax.xml.parsers.DocumentBuilderFactory;
+
+/**
+ * 解析layout文件中的bindModel和bindValue声明.
+ *
+ * @author zhulantian@gmail.com
+ */
+public class LayoutParser {
+
+    private static final String ANDROID_NS = "http://schemas.android.com/apk/res/android";
+    private static final String ATTR_BIND_VALUE = "bindValue";
+    private static final String ATTR_BIND_MODEL = "bindModel";
+
+    private final DocumentBuilder mBuilder;
+
+    public LayoutParser() throws Exception {
+        DocumentBuilderFactory factory = DocumentBuilderFactory.newInstance();
+        factory.setNamespaceAware(true);
+        mBuilder = factory.newDocumentBuilder();
+    }
+
+    public LayoutBinding parse(File layoutFile, String rClassName) throws Exception {
+        Element root = mBuilder.parse(layoutFile).getDocumentElement();
+        String name = layoutFile.getName();
+        LayoutBinding layout = new LayoutBinding(layoutFile.getParentFile().getName(),
+                name.substring(0, name.lastIndexOf('.')), getAttribute(root, ATTR_BIND_MODEL));
+        collect(root, layout, rClassName);
+        return layout;
+    }
+
+    private void collect(Element element, LayoutBinding layout, String rClassName)
+            throws BindingException {
+        String bindValue = getAttribute(element, ATTR_BIND_VALUE);
+        if (bindValue != null) {
+            String id = element.getAttributeNS(ANDROID_NS, "id");
+            if (id.isEmpty()) {
+                throw new BindingException(layout.getPath() + ": <"
+                        + element.getTagName() + "> declares bindValue '" + bindValue
+                        + "' but has no android:id");
+            }
+            String idName = id.substring(id.indexOf('/') + 1);
+            String idReference = id.startsWith("@android:id/")
+                    ? "android.R.id." + idName : rClassName + ".id." + idName;
+            layout.views.add(new LayoutBinding.ViewBinding(idReference, idName, bindValue));
+        }
+        NodeList children = element.getChildNodes();
+        for (int i = 0; i < children.getLength(); ++i) {
+            Node child = children.item(i);
+            if (child.getNodeType() == Node.ELEMENT_NODE) {
+                collect((Element) child, layout, rClassName);
+            }
+        }
+    }
+
+    /**
+     * bindValue/bindModel可能使用res-auto或者应用包名的命名空间, 因此只比较属性名.
+     */
+    private static String getAttribute(Element element, String localName) {
+        NamedNodeMap attributes = element.getAttributes();
+        for (int i = 0; i < attributes.getLength(); ++i) {
+            Attr attr = (Attr) attributes.item(i);
+            if (localName.equals(attr.getLocalName()) && !ANDROID_NS.equals(attr.getNamespaceURI())) {
+                return attr.getValue();
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,212 @@
+package code.jesse.palette.compiler;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Field;
+import java.lang.reflect.GenericArrayType;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.lang.reflect.TypeVariable;
+import java.lang.reflect.WildcardType;
+import java.util.List;
+
+/**
+ * 把${.a.b[2].c}形式的属性路径按Model类型解析, 生成直接访问public字段的Java代码.
+ * <p/>
+ * 生成代码的语义与运行时的PathExpression一致: 只读取字段(不调用getter), 路径中任意一段为null或者下标越界时
+ * 结果为null.
+ * 路径经过非public的字段或类型时无法生成直接访问的代码, 但仍会检查路径是否正确, 运行时继续通过反射读取.
+ *
+ * @author zhulantian@gmail.com
+ */
+public class PathCompiler {
+
+    private static final String PREFIX = "${.";
+    private static final String SUFFIX = "}";
+    private static final int NO_INDEX = -1;
+
+    private PathCompiler() {
+        // utility class
+    }
+
+    /**
+     * @return bindValue是否是可以生成代码的属性路径, 其它表达式仍在运行时解析.
+     */
+    public static boolean isPath(String bindValue) {
+        if (!bindValue.startsWith(PREFIX) || !bindValue.endsWith(SUFFIX)) {
+            return false;
+        }
+        String path = bindValue.substring(PREFIX.length(), bindValue.length() - SUFFIX.length());
+        for (int i = 0; i < path.length(); ++i) {
+            char c = path.charAt(i);
+            if (!Character.isJavaIdentifierPart(c) && c != '.' && c != '[' && c != ']') {
+                return false;
+            }
+        }
+        return !path.isEmpty();
+    }
+
+    /**
+     * 生成evaluate(Object model)的方法体.
+     *
+     * @param modelClass layout声明的Model类型.
+     * @param bindValue  属性路径, 需满足{@link #isPath(String)}.
+     * @param indent     每行代码的缩进.
+     * @return 方法体代码, 路径需要访问非public的字段或类型时返回null.
+     * @throws BindingException 路径无法在Model类型上解析.
+     */
+    public static String compile(Class<?> modelClass, String bindValue, String indent)
+            throws BindingException {
+        String path = bindValue.substring(PREFIX.length(), bindValue.length() - SUFFIX.length());
+        String[] segments = path.split("\\.", -1);
+        StringBuilder code = new StringBuilder();
+        boolean direct = true;
+        int var = 0;
+        Type type = modelClass;
+        code.append(indent).append(typeName(modelClass)).append(" v0 = (")
+                .append(typeName(modelClass)).append(") model;\n");
+        for (int i = 0; i < segments.length; ++i) {
+            String segment = segments[i];
+            String name = segment;
+            int index = NO_INDEX;
+            int bracket = segment.indexOf('[');
+            if (bracket != -1 && segment.endsWith("]")) {
+                name = segment.substring(0, bracket);
+                try {
+                    index = Integer.parseInt(segment.substring(bracket + 1, segment.indexOf(']')));
+                } catch (NumberFormatException e) {
+                    throw new BindingException(bindValue + ": illegal index in '" + segment + "'");
+                }
+            }
+            Class<?> owner = rawType(type);
+            if (owner.isPrimitive() || owner.isArray()) {
+                throw new BindingException(bindValue + ": can't access '" + name + "' on "
+                        + owner.getName());
+            }
+            code.append(indent).append("if (v").append(var).append(" == null) {\n")
+                    .append(indent).append("    return null;\n")
+                    .append(indent).append("}\n");
+
+            Field field = findField(owner, name);
+            if (field == null) {
+                throw new BindingException(bindValue + ": no field '" + name + "' in "
+                        + owner.getName());
+            }
+            direct &= Modifier.isPublic(field.getModifiers());
+            Type memberType = field.getGenericType();
+            String access = "v" + var + "." + name;
+
+            if (index != NO_INDEX) {
+                Class<?> container = rawType(memberType);
+                String containerName = referenceName(container);
+                direct &= containerName != null;
+                // 与运行时一致, 下标越界时结果为null
+                String size = container.isArray() ? ".length" : ".size()";
+                code.append(indent).append(containerName).append(" v").append(++var)
+                        .append(" = ").append(access).append(";\n")
+                        .append(indent).append("if (v").append(var).append(" == null || v").append(var)
+                        .append(size).append(" <= ").append(index).append(") {\n")
+                        .append(indent).append("    return null;\n")
+                        .append(indent).append("}\n");
+                if (container.isArray()) {
+                    memberType = componentType(memberType);
+                    access = "v" + var + "[" + index + "]";
+                } else if (List.class.isAssignableFrom(container)) {
+                    memberType = elementType(memberType);
+                    String elementName = referenceName(rawType(memberType));
+                    direct &= elementName != null;
+                    access = "((" + elementName + ") v" + var + ".get(" + index + "))";
+                } else {
+                    throw new BindingException(bindValue + ": '" + name + "' of "
+                            + owner.getName() + " is not an array or List");
+                }
+            }
+
+            if (i == segments.length - 1) {
+                code.append(indent).append("return ").append(access).append(";\n");
+            } else {
+                Class<?> raw = rawType(memberType);
+                if (raw == Object.class) {
+                    throw new BindingException(bindValue + ": can't resolve the type of '"
+                            + segment + "' in " + owner.getName());
+                }
+                String rawName = referenceName(raw);
+                direct &= rawName != null;
+                code.append(indent).append(rawName).append(" v").append(++var)
+                        .append(" = ").append(access).append(";\n");
+                type = memberType;
+            }
+        }
+        return direct ? code.toString() : null;
+    }
+
+    /**
+     * @return 可以在生成代码中引用的类名, 不能引用时返回null.
+     */
+    private static String referenceName(Class<?> clazz) {
+        try {
+            return typeName(clazz);
+        } catch (BindingException e) {
+            return null;
+        }
+    }
+
+    /**
+     * @return 可以在生成代码中引用的类名.
+     */
+    public static String typeName(Class<?> clazz) throws BindingException {
+        if (clazz.isArray()) {
+            return typeName(clazz.getComponentType()) + "[]";
+        }
+        for (Class<?> c = clazz; c != null; c = c.getEnclosingClass()) {
+            if (!c.isPrimitive() && !Modifier.isPublic(c.getModifiers())) {
+                throw new BindingException(clazz.getName() + " is not public");
+            }
+        }
+        if (clazz.getCanonicalName() == null) {
+            throw new BindingException(clazz.getName() + " has no canonical name");
+        }
+        return clazz.getCanonicalName();
+    }
+
+    private static Field findField(Class<?> clazz, String name) {
+        for (Class<?> cls = clazz; cls != null; cls = cls.getSuperclass()) {
+            for (Field field : cls.getDeclaredFields()) {
+                if (field.getName().equals(name)) {
+                    return field;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static Class<?> rawType(Type type) {
+        if (type instanceof Class) {
+            return (Class<?>) type;
+        } else if (type instanceof ParameterizedType) {
+            return (Class<?>) ((ParameterizedType) type).getRawType();
+        } else if (type instanceof GenericArrayType) {
+            Class<?> component = rawType(((GenericArrayType) type).getGenericComponentType());
+            return Array.newInstance(component, 0).getClass();
+        } else if (type instanceof TypeVariable) {
+            return rawType(((TypeVariable<?>) type).getBounds()[0]);
+        } else if (type instanceof WildcardType) {
+            return rawType(((WildcardType) type).getUpperBounds()[0]);
+        }
+        return Object.class;
+    }
+
+    private static Type componentType(Type arrayType) {
+        if (arrayType instanceof GenericArrayType) {
+            return ((GenericArrayType) arrayType).getGenericComponentType();
+        }
+        return rawType(arrayType).getComponentType();
+    }
+
+    private static Type elementType(Type listType) {
+        if (listType instanceof ParameterizedType) {
+            return ((ParameterizedType) listType).getActualTypeArguments()[0];
+        }
+        return Object.class;
+    }
+}
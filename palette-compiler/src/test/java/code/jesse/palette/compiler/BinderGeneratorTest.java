@@ -0,0 +1,194 @@
+package code.jesse.palette.compiler;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author zhulantian@gmail.com
+ */
+public class BinderGeneratorTest {
+
+    public static class User {
+        public String name;
+        private String secret;
+
+        public String getSecret() {
+            return secret;
+        }
+    }
+
+    public static class FeedModel {
+        public String title;
+        public User user;
+        public List<User> friends;
+        public int[] scores;
+    }
+
+    public static class OtherModel {
+        public String title;
+    }
+
+    private static final String MODEL = FeedModel.class.getName();
+
+    private File mRoot;
+    private File mRes;
+    private File mOut;
+
+    @Before
+    public void setUp() throws IOException {
+        mRoot = Files.createTempDirectory("palette").toFile();
+        mRes = new File(mRoot, "res");
+        mOut = new File(mRoot, "out");
+    }
+
+    @After
+    public void tearDown() {
+        delete(mRoot);
+    }
+
+    @Test
+    public void generatesDirectFieldAccess() throws Exception {
+        layout("layout", "feed_card", MODEL,
+                view("title", "${.title}"),
+                view("user_name", "${.user.name}"),
+                view("friend", "${.friends[0].name}"),
+                view("score", "${.scores[1]}"));
+        assertEquals(Collections.<String>emptyList(), generate());
+        String binder = read("FeedCardBinder");
+        assertTrue(binder.contains("return v0.title;"));
+        assertTrue(binder.contains("return v1.name;"));
+        assertTrue(binder.contains("((" + User.class.getCanonicalName() + ") v1.get(0))"));
+        assertTrue(binder.contains("return v1[1];"));
+        assertTrue(binder.contains("if (v1 == null || v1.length <= 1) {"));
+        assertTrue(binder.contains("if (v1 == null || v1.size() <= 0) {"));
+        assertTrue(read("PaletteBinders").contains(
+                "LayoutBinders.register(com.example.R.layout.feed_card, new FeedCardBinder());"));
+    }
+
+    @Test
+    public void reportsMisspelledPath() throws Exception {
+        layout("layout", "feed_card", MODEL, view("title", "${.titel}"));
+        List<String> errors = generate();
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0), errors.get(0).startsWith("layout/feed_card.xml: ${.titel}"));
+        assertFalse(new File(mOut, "com/example/binding/PaletteBinders.java").exists());
+    }
+
+    @Test
+    public void checksEveryConfiguration() throws Exception {
+        layout("layout", "feed_card", MODEL, view("title", "${.title}"));
+        layout("layout-land", "feed_card", MODEL, view("title", "${.title}"),
+                view("user_name", "${.user.nmae}"));
+        List<String> errors = generate();
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0), errors.get(0).startsWith("layout-land/feed_card.xml: "));
+    }
+
+    @Test
+    public void mergesViewsFromAllConfigurations() throws Exception {
+        layout("layout", "feed_card", MODEL, view("title", "${.title}"));
+        layout("layout-land", "feed_card", MODEL, view("title", "${.title}"),
+                view("user_name", "${.user.name}"));
+        assertEquals(Collections.<String>emptyList(), generate());
+        String binder = read("FeedCardBinder");
+        assertTrue(binder.contains("viewId == com.example.R.id.title"));
+        assertTrue(binder.contains("viewId == com.example.R.id.user_name"));
+    }
+
+    @Test
+    public void rejectsConflictingBindValues() throws Exception {
+        layout("layout", "feed_card", MODEL, view("title", "${.title}"));
+        layout("layout-land", "feed_card", MODEL, view("title", "${.user.name}"));
+        List<String> errors = generate();
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0), errors.get(0).contains("binds '${.user.name}' but layout/feed_card.xml"));
+    }
+
+    @Test
+    public void rejectsConflictingModels() throws Exception {
+        layout("layout", "feed_card", MODEL, view("title", "${.title}"));
+        layout("layout-land", "feed_card", OtherModel.class.getName(), view("title", "${.title}"));
+        List<String> errors = generate();
+        assertEquals(1, errors.size());
+        assertTrue(errors.get(0), errors.get(0).contains("bindModel"));
+    }
+
+    @Test
+    public void leavesNonPublicFieldsToRuntime() throws Exception {
+        // 运行时读取字段而不是getter, 生成的代码也不能改为调用getter
+        layout("layout", "feed_card", MODEL, view("title", "${.title}"),
+                view("secret", "${.user.secret}"));
+        assertEquals(Collections.<String>emptyList(), generate());
+        String binder = read("FeedCardBinder");
+        assertFalse(binder.contains("getSecret"));
+        assertFalse(binder.contains("R.id.secret"));
+        assertTrue(binder.contains("R.id.title"));
+    }
+
+    @Test
+    public void skipsExpressionsThatAreNotPaths() throws Exception {
+        layout("layout", "feed_card", MODEL, view("title", "${upper(.title)}"));
+        assertEquals(Collections.<String>emptyList(), generate());
+        assertFalse(read("FeedCardBinder").contains("R.id.title"));
+    }
+
+    private List<String> generate() throws Exception {
+        return new BinderGenerator(Collections.singletonList(mRes), getClass().getClassLoader(),
+                "com.example.R", "com.example.binding", mOut).generate();
+    }
+
+    private static String view(String id, String bindValue) {
+        return "<TextView android:id=\"@+id/" + id + "\" app:bindValue=\"" + bindValue + "\"/>";
+    }
+
+    private void layout(String configuration, String name, String model, String... views)
+            throws IOException {
+        File dir = new File(mRes, configuration);
+        assertTrue(dir.isDirectory() || dir.mkdirs());
+        StringBuilder xml = new StringBuilder()
+                .append("<LinearLayout xmlns:android=\"http://schemas.android.com/apk/res/android\"\n")
+                .append("    xmlns:app=\"http://schemas.android.com/apk/res-auto\"\n")
+                .append("    app:bindModel=\"").append(model).append("\">\n");
+        for (String view : views) {
+            xml.append("    ").append(view).append('\n');
+        }
+        xml.append("</LinearLayout>\n");
+        Writer writer = new OutputStreamWriter(
+                new FileOutputStream(new File(dir, name + ".xml")), "UTF-8");
+        try {
+            writer.write(xml.toString());
+        } finally {
+            writer.close();
+        }
+    }
+
+    private String read(String className) throws IOException {
+        File file = new File(mOut, "com/example/binding/" + className + ".java");
+        return new String(Files.readAllBytes(file.toPath()), Charset.forName("UTF-8"));
+    }
+
+    private static void delete(File file) {
+        File[] children = file.listFiles();
+        if (children != null) {
+            for (File child : children) {
+                delete(child);
+            }
+        }
+        file.delete();
+    }
+}
@@ -1,11 +1,26 @@
 package code.jesse.palette;
 
 import android.content.Context;
+import android.os.Build;
+import android.os.Looper;
+import android.os.MessageQueue;
 import android.util.Log;
 import android.util.SparseArray;
+import android.util.SparseIntArray;
 import android.view.View;
+import android.view.ViewParent;
+import android.view.ViewTreeObserver;
 
+import java.util.Collection;
+
+import code.jesse.palette.model.BaseObservableModel;
+import code.jesse.palette.model.Fingerprinter;
+import code.jesse.palette.model.ObservableModel;
+import code.jesse.palette.model.VersionedModel;
 import code.jesse.palette.tools.ViewHelper;
+import code.jesse.palette.tools.ViewTagger;
+import code.jesse.palette.trace.BindTracer;
+import code.jesse.palette.trace.Tracing;
 
 /**
  * CardPresenter是用来把一个Model绑定到当前的Card上的, 参考{@link #bind(Object)}。
@@ -32,6 +47,25 @@ import code.jesse.palette.tools.ViewHelper;
  * 3. 删除，CardPresenter.set(R.id.xxx, null, false);<br/>
  * ---> OR: CardPresenter.remove(R.id.xxx);<br/>
  *
+ * 如果Model是{@link ObservableModel}, 可以通过{@link #observe(int, int...)}声明每个View读取了哪些属性,
+ * Model的属性变化时只重新绑定读取了这些属性的View, 而不是整张卡片. Adapter也可以通过{@link #bind(Object, Object)}
+ * 用payload指明变化的属性.
+ *
+ * 如果Model是{@link VersionedModel}, 或者设置了{@link Fingerprinter}, 再次绑定没有变化的Model时会跳过整次绑定,
+ * 参见{@link #setFingerprinter(Fingerprinter)}.
+ *
+ * ViewId在第一次绑定(或者Presenter被修改之后)时一次性查找为View并保存到数组中, 之后的绑定只是对数组的遍历.
+ * 如果卡片的View结构被动态修改了, 需要调用{@link #invalidateViews()}.
+ *
+ * 不可见(自身或者卡片内的父View不是VISIBLE)的View上的Presenter可以推迟到View变为可见之后再绑定, 参见
+ * {@link #setDeferInvisible(boolean)}和{@link ViewPresenter#getVisibilityPolicy()}.
+ *
+ * 次要的Presenter可以通过{@link #setPriority(int, int)}推迟到下一帧或者主线程空闲时绑定, 使复杂卡片的首次绑定
+ * 在一帧内完成. 推迟的绑定使用执行时的Model, 卡片解绑时取消.
+ *
+ * 列表快速滑动时可以用{@link #bindLightweight(Object)}只绑定可以在滑动中绑定的Presenter, 停止滑动后再通过
+ * {@link #completeBind()}完成绑定, 参见{@link ViewPresenter#isFlingSafe()}.
+ *
  * @see Presenter
  * @see ViewPresenter
  * @see ViewHelper
@@ -41,24 +75,113 @@ import code.jesse.palette.tools.ViewHelper;
 public final class CardPresenter implements Presenter {
 
     public static final int CARD_ID = 0;
+
+    /**
+     * 在{@link #bind(Object)}中立即绑定, 默认.
+     */
+    public static final int PRIORITY_IMMEDIATE = 0;
+
+    /**
+     * 推迟到下一帧开始时绑定.
+     */
+    public static final int PRIORITY_NEXT_FRAME = 1;
+
+    /**
+     * 推迟到主线程空闲时绑定, 每次空闲只绑定一个Presenter.
+     */
+    public static final int PRIORITY_IDLE = 2;
+
     private static final String LOG_TAG = "Presenter";
 
+    private static long sTotalSkippedCount;
+
     public final View mView;
     public final Context mContext;
 
     private final ViewHelper mHelper;
     private final SparseArray<ViewPresenter> mPresenters;
+    private final SparseArray<Long> mObservedProperties;
+    private final SparseIntArray mPriorities;
+
+    /**
+     * 按ViewId的顺序保存解析好的Presenter, View以及观察的属性, {@link #mSlotsDirty}为true时重新解析.
+     */
+    private int[] mSlotIds;
+    private ViewPresenter[] mSlotPresenters;
+    private View[] mSlotViews;
+    private long[] mSlotProperties;
+    private boolean[] mSlotDeferrable;
+    private boolean[] mSlotPending;
+    private int[] mSlotPriorities;
+    private boolean[] mSlotStaged;
+    private boolean[] mSlotFlingSafe;
+    private boolean mSlotsDirty = true;
+
+    private boolean mDeferInvisible;
+    private boolean mDegraded;
+    private boolean mListeningPending;
+    private boolean mFrameStageScheduled;
+    private boolean mIdleStageScheduled;
+    private final Runnable mFrameStage = new Runnable() {
+        @Override
+        public void run() {
+            mFrameStageScheduled = false;
+            bindStaged(PRIORITY_NEXT_FRAME, false);
+        }
+    };
+    private final MessageQueue.IdleHandler mIdleStage = new MessageQueue.IdleHandler() {
+        @Override
+        public boolean queueIdle() {
+            mIdleStageScheduled = bindStaged(PRIORITY_IDLE, true);
+            return mIdleStageScheduled;
+        }
+    };
+    private final ViewTreeObserver.OnPreDrawListener mPendingListener =
+            new ViewTreeObserver.OnPreDrawListener() {
+                @Override
+                public boolean onPreDraw() {
+                    return !bindPending();
+                }
+            };
+
+    private Fingerprinter mFingerprinter;
+    private long mLastFingerprint;
+    private boolean mHasFingerprint;
+    private long mSkippedCount;
+    private final ObservableModel.OnModelChangedListener mModelChangedListener =
+            new ObservableModel.OnModelChangedListener() {
+                @Override
+                public void onModelChanged(ObservableModel model, long dirtyFlags) {
+                    if (model == mModel) {
+                        rebind(dirtyFlags);
+                    }
+                }
+            };
 
     /**
      * 当前使用的model对象，每次bind都会被重新赋值, unbind会置空.
      */
     public Object mModel;
 
+    /**
+     * 正在监听变化的Model, 卡片离开屏幕之后为null, 参见{@link #detach()}.
+     */
+    private Object mObservedModel;
+
     public CardPresenter(View view) {
+        this(view, 10);
+    }
+
+    /**
+     * @param capacity 预计的ViewId数目, 参见{@link CardSpec}.
+     */
+    CardPresenter(View view, int capacity) {
         mView = view;
         mContext = view.getContext();
         mHelper = new ViewHelper(mView);
-        mPresenters = new SparseArray<>();
+        mPresenters = new SparseArray<>(capacity);
+        mObservedProperties = new SparseArray<>(capacity);
+        mPriorities = new SparseIntArray(capacity);
     }
 
     /**
@@ -66,20 +189,83 @@ public final class CardPresenter implements Presenter {
      * <p/>
      * 方法会串行执行{@link #mPresenters}中的所有Presenter的 {@link Presenter#bind(Object)}方法， 最终完成整个Card的绑定逻辑。
      * <p/>
-     * 请注意，根据ViewId查找View的逻辑是lazy的，并且在{@link #helper()}中封装了查找缓存的逻辑，
+     * 请注意，根据ViewId查找View的逻辑是lazy的，只在第一次绑定或者Presenter被修改之后查找一次，
      * 因此并不需要担心findViewById的效率问题，CardPresenter本身起到了ViewHolder的作用。
      *
      * @param model 需要绑定到当前View的数据源。
      * @see Presenter
      */
     public void bind(Object model) {
+        if (isUnchanged(model)) {
+            // 指纹相同的新对象不需要重新绑定View, 但之后的属性变化要来自新的Model;
+            // 离开过屏幕的卡片也要重新监听
+            observeModel(model);
+            this.mModel = model;
+            mSkippedCount++;
+            sTotalSkippedCount++;
+            return;
+        }
+        bindSlots(model, false);
+    }
+
+    /**
+     * 轻量绑定, 只绑定{@link ViewPresenter#isFlingSafe()}的Presenter, 其它Presenter调用
+     * {@link ViewPresenter#onFlingBind(Object)}. 用于列表快速滑动时, 之后需要调用{@link #completeBind()}.
+     *
+     * @param model 需要绑定到当前View的数据源。
+     */
+    public void bindLightweight(Object model) {
+        // 之后的完整绑定不能被跳过
+        mHasFingerprint = false;
+        bindSlots(model, true);
+    }
+
+    /**
+     * @return 上一次绑定是否为轻量绑定, 还没有完成.
+     */
+    public boolean isDegraded() {
+        return mDegraded;
+    }
+
+    /**
+     * 上一次绑定是轻量绑定时, 对同一个Model完成整次绑定.
+     */
+    public void completeBind() {
+        if (mDegraded) {
+            invalidate();
+            bind(mModel);
+        }
+    }
+
+    private void bindSlots(Object model, boolean lightweight) {
+        observeModel(model);
         this.mModel = model;
+        mDegraded = lightweight;
+        ensureSlots();
+        BindTracer tracer = Tracing.getTracer();
+        if (tracer != null) {
+            tracer.beginSection(BindTracer.SECTION_CARD_BIND, this, ViewTagger.getLayoutId(mView));
+        }
         // bind elements
-        for (int i = 0; i < mPresenters.size(); ++i) {
-            Presenter presenter = find(i);
-            if (presenter != null) {
-                presenter.bind(model);
+        View[] views = mSlotViews;
+        boolean pending = false;
+        for (int i = 0; i < views.length; ++i) {
+            if (views[i] == null) {
+                continue;
             }
+            if (lightweight && !mSlotFlingSafe[i]) {
+                mSlotStaged[i] = false;
+                mSlotPending[i] = false;
+                ViewPresenter presenter = mSlotPresenters[i];
+                presenter.mView = views[i];
+                presenter.onFlingBind(model);
+            } else {
+                pending |= dispatchSlot(i, model, tracer);
+            }
+        }
+        listenPending(pending);
+        if (tracer != null) {
+            tracer.endSection(BindTracer.SECTION_CARD_BIND);
         }
     }
 
@@ -87,32 +273,465 @@ public final class CardPresenter implements Presenter {
      * 方法或解绑整张卡片上的所有Presenter.
      */
     public void unbind() {
+        mHasFingerprint = false;
+        mDegraded = false;
+        observeModel(null);
         this.mModel = null;
-        for (int i = 0; i < mPresenters.size(); ++i) {
-            Presenter presenter = find(i);
-            if (presenter != null) {
+        ensureSlots();
+        listenPending(false);
+        cancelStages();
+        ViewPresenter[] presenters = mSlotPresenters;
+        View[] views = mSlotViews;
+        for (int i = 0; i < presenters.length; ++i) {
+            mSlotPending[i] = false;
+            mSlotStaged[i] = false;
+            View view = views[i];
+            if (view != null) {
+                ViewPresenter presenter = presenters[i];
+                presenter.mView = view;
                 presenter.unbind();
             }
         }
     }
 
-    private ViewPresenter find(int i) {
-        View elementView;
-        int viewId = mPresenters.keyAt(i);
-        if (viewId == CARD_ID) {
-            elementView = mView;
+    /**
+     * 卡片离开屏幕(例如进入ListView的回收池)时调用: 停止监听Model的变化, 取消还没有完成的推迟绑定, 不修改View.
+     * <p/>
+     * 与{@link #unbind()}不同, 已经绑定的内容被保留, 再次绑定同一个Model时仍然可以按指纹跳过;
+     * 有推迟的绑定被取消时下一次绑定不会跳过. 再次绑定时重新监听Model.
+     */
+    public void detach() {
+        observeModel(null);
+        listenPending(false);
+        cancelStages();
+        boolean incomplete = mDegraded;
+        if (mSlotPending != null) {
+            for (int i = 0; i < mSlotPending.length; ++i) {
+                incomplete |= mSlotPending[i] || mSlotStaged[i];
+                mSlotPending[i] = false;
+                mSlotStaged[i] = false;
+            }
+        }
+        if (incomplete) {
+            mHasFingerprint = false;
+        }
+    }
+
+    /**
+     * 只重新绑定payload指明的属性, 参见{@link #observe(int, int...)}.
+     * <p/>
+     * payload可以是属性编号(Integer, 0~63), 属性的bit mask(Long, 不为0), 或者它们的集合(例如RecyclerView的payloads).
+     * payload为null时等同于{@link #bind(Object)}, 无法识别或者超出范围的payload也会绑定整张卡片.
+     * Model与当前的Model不是同一个对象时, 总是绑定整张卡片.
+     *
+     * @param model   需要绑定到当前View的数据源, 一般与当前的Model是同一个数据.
+     * @param payload 变化的属性.
+     */
+    public void bind(Object model, Object payload) {
+        long dirtyFlags = toDirtyFlags(payload);
+        if (dirtyFlags == ObservableModel.ALL_PROPERTIES || model != mModel) {
+            // 新的Model上其它属性也可能不同
+            bind(model);
+            return;
+        }
+        observeModel(model);
+        // 部分绑定之后, 下一次完整绑定不能被跳过
+        mHasFingerprint = false;
+        rebind(dirtyFlags);
+    }
+
+    private static long toDirtyFlags(Object payload) {
+        if (payload == null) {
+            return ObservableModel.ALL_PROPERTIES;
+        } else if (payload instanceof Integer) {
+            int propertyId = (Integer) payload;
+            return propertyId >= 0 && propertyId < 64 ? 1L << propertyId : ObservableModel.ALL_PROPERTIES;
+        } else if (payload instanceof Long) {
+            long flags = (Long) payload;
+            return flags == 0 ? ObservableModel.ALL_PROPERTIES : flags;
+        } else if (payload instanceof Collection) {
+            long flags = 0;
+            for (Object item : (Collection<?>) payload) {
+                long itemFlags = toDirtyFlags(item);
+                if (itemFlags == ObservableModel.ALL_PROPERTIES) {
+                    return ObservableModel.ALL_PROPERTIES;
+                }
+                flags |= itemFlags;
+            }
+            return flags == 0 ? ObservableModel.ALL_PROPERTIES : flags;
+        }
+        return ObservableModel.ALL_PROPERTIES;
+    }
+
+    /**
+     * 只重新绑定读取了变化属性的View, 参见{@link #observe(int, int...)}.
+     * <p/>
+     * 绑定的Model是{@link ObservableModel}时会在属性变化时自动调用, 其它Model也可以在已知变化的属性时直接调用.
+     *
+     * @param dirtyFlags 变化的属性, {@link ObservableModel#ALL_PROPERTIES}表示重新绑定整张卡片.
+     */
+    public void rebind(long dirtyFlags) {
+        if (dirtyFlags == ObservableModel.ALL_PROPERTIES) {
+            invalidate();
+            bind(mModel);
+            return;
+        }
+        ensureSlots();
+        BindTracer tracer = Tracing.getTracer();
+        View[] views = mSlotViews;
+        long[] properties = mSlotProperties;
+        boolean pending = false;
+        for (int i = 0; i < views.length; ++i) {
+            if (mDegraded && !mSlotFlingSafe[i]) {
+                // 等待completeBind
+                continue;
+            }
+            if (views[i] != null && (properties[i] & dirtyFlags) != 0) {
+                pending |= dispatchSlot(i, mModel, tracer);
+            }
+        }
+        if (pending) {
+            listenPending(true);
+        }
+    }
+
+    /**
+     * 按优先级绑定一个Presenter或者推迟到之后的阶段.
+     *
+     * @return 是否因为View不可见而被推迟.
+     */
+    private boolean dispatchSlot(int i, Object model, BindTracer tracer) {
+        int priority = mSlotPriorities[i];
+        if (priority == PRIORITY_IMMEDIATE) {
+            mSlotStaged[i] = false;
+            return bindIfVisible(i, model, tracer);
+        }
+        mSlotStaged[i] = true;
+        mSlotPending[i] = false;
+        scheduleStage(priority);
+        return false;
+    }
+
+    /**
+     * 绑定一个Presenter, 或者在View不可见时标记为待绑定.
+     *
+     * @return 是否被推迟.
+     */
+    private boolean bindIfVisible(int i, Object model, BindTracer tracer) {
+        if (mSlotDeferrable[i] && !isVisibleInCard(mSlotViews[i])) {
+            mSlotPending[i] = true;
+            return true;
+        }
+        mSlotPending[i] = false;
+        bindSlot(i, model, tracer);
+        return false;
+    }
+
+    /**
+     * 在绘制前绑定已经变为可见的待绑定Presenter.
+     *
+     * @return 是否绑定了Presenter.
+     */
+    private boolean bindPending() {
+        if (mSlotsDirty) {
+            // Presenter被修改过, 待绑定的状态已经失效
+            listenPending(false);
+            return false;
+        }
+        BindTracer tracer = Tracing.getTracer();
+        boolean bound = false;
+        boolean pending = false;
+        for (int i = 0; i < mSlotPending.length; ++i) {
+            if (!mSlotPending[i]) {
+                continue;
+            }
+            if (isVisibleInCard(mSlotViews[i])) {
+                mSlotPending[i] = false;
+                bindSlot(i, mModel, tracer);
+                bound = true;
+            } else {
+                pending = true;
+            }
+        }
+        listenPending(pending);
+        // 绑定修改了View时取消这一次绘制, 使新内容先完成布局
+        return bound;
+    }
+
+    private void scheduleStage(int priority) {
+        if (priority == PRIORITY_NEXT_FRAME) {
+            if (!mFrameStageScheduled) {
+                mFrameStageScheduled = true;
+                if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+                    mView.postOnAnimation(mFrameStage);
+                } else {
+                    mView.post(mFrameStage);
+                }
+            }
+        } else if (!mIdleStageScheduled) {
+            mIdleStageScheduled = true;
+            Looper.myQueue().addIdleHandler(mIdleStage);
+        }
+    }
+
+    private void cancelStages() {
+        if (mFrameStageScheduled) {
+            mView.removeCallbacks(mFrameStage);
+            mFrameStageScheduled = false;
+        }
+        if (mIdleStageScheduled) {
+            Looper.myQueue().removeIdleHandler(mIdleStage);
+            mIdleStageScheduled = false;
+        }
+    }
+
+    /**
+     * 绑定推迟到某个阶段的Presenter.
+     *
+     * @param priority 阶段.
+     * @param one      是否只绑定一个.
+     * @return 这个阶段是否还有没绑定的Presenter.
+     */
+    private boolean bindStaged(int priority, boolean one) {
+        if (mSlotsDirty) {
+            // Presenter被修改过, 等待下一次完整的绑定
+            return false;
+        }
+        BindTracer tracer = Tracing.getTracer();
+        boolean pending = false;
+        for (int i = 0; i < mSlotStaged.length; ++i) {
+            if (!mSlotStaged[i] || mSlotPriorities[i] != priority) {
+                continue;
+            }
+            mSlotStaged[i] = false;
+            pending |= bindIfVisible(i, mModel, tracer);
+            if (one) {
+                break;
+            }
+        }
+        if (pending) {
+            listenPending(true);
+        }
+        for (int i = 0; i < mSlotStaged.length; ++i) {
+            if (mSlotStaged[i] && mSlotPriorities[i] == priority) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * 设置某个ViewId上Presenter的绑定优先级.
+     *
+     * @param id       对应的ViewId.
+     * @param priority PRIORITY_IMMEDIATE, PRIORITY_NEXT_FRAME或PRIORITY_IDLE.
+     * @return self.
+     */
+    public CardPresenter setPriority(int id, int priority) {
+        if (priority < PRIORITY_IMMEDIATE || priority > PRIORITY_IDLE) {
+            throw new IllegalArgumentException("Unknown priority: " + priority);
+        }
+        mPriorities.put(id, priority);
+        mSlotsDirty = true;
+        return this;
+    }
+
+    private void listenPending(boolean listen) {
+        if (listen == mListeningPending) {
+            return;
+        }
+        ViewTreeObserver observer = mView.getViewTreeObserver();
+        if (listen) {
+            observer.addOnPreDrawListener(mPendingListener);
+        } else if (observer.isAlive()) {
+            observer.removeOnPreDrawListener(mPendingListener);
+        }
+        mListeningPending = listen;
+    }
+
+    /**
+     * @return View自身以及它在卡片内的所有父View是否都是VISIBLE.
+     */
+    private boolean isVisibleInCard(View view) {
+        while (view.getVisibility() == View.VISIBLE) {
+            if (view == mView) {
+                return true;
+            }
+            ViewParent parent = view.getParent();
+            if (!(parent instanceof View)) {
+                return true;
+            }
+            view = (View) parent;
+        }
+        return false;
+    }
+
+    /**
+     * 开启之后, 不可见的View上{@link ViewPresenter#VISIBILITY_DEFAULT}的Presenter也会推迟到View可见时绑定.
+     * 默认关闭, 只推迟{@link ViewPresenter#VISIBILITY_LAZY}的Presenter.
+     *
+     * @return self.
+     */
+    public CardPresenter setDeferInvisible(boolean deferInvisible) {
+        if (mDeferInvisible != deferInvisible) {
+            mDeferInvisible = deferInvisible;
+            mSlotsDirty = true;
+        }
+        return this;
+    }
+
+    private void bindSlot(int i, Object model, BindTracer tracer) {
+        ViewPresenter presenter = mSlotPresenters[i];
+        presenter.mView = mSlotViews[i];
+        if (tracer == null) {
+            presenter.bind(model);
         } else {
-            elementView = helper().id(viewId).getView();
+            tracer.beginSection(BindTracer.SECTION_PRESENTER_BIND, presenter, mSlotIds[i]);
+            presenter.bind(model);
+            tracer.endSection(BindTracer.SECTION_PRESENTER_BIND);
         }
-        if (elementView == null) {
-            Log.w(LOG_TAG,
-                    "IGNORED, VIEW ID NOT FOUND:" + Integer.toHexString(mPresenters.keyAt(i)));
-            return null;
+    }
+
+    /**
+     * 声明某个View的Presenter读取了Model的哪些属性, 这些属性变化时这个View会被重新绑定.
+     * <p/>
+     * 没有声明的View只会在{@link #bind(Object)}时绑定.
+     *
+     * @param id          对应的ViewId.
+     * @param propertyIds 属性编号, 0~63, 参见{@link ObservableModel}.
+     * @return self.
+     * @throws IllegalArgumentException 编号超出范围.
+     */
+    public CardPresenter observe(int id, int... propertyIds) {
+        long flags = mObservedProperties.get(id, 0L);
+        for (int propertyId : propertyIds) {
+            flags |= BaseObservableModel.propertyFlag(propertyId);
+        }
+        mObservedProperties.put(id, flags);
+        mSlotsDirty = true;
+        return this;
+    }
+
+    /**
+     * 设置Model的指纹计算方式, 新Model的指纹与上一次绑定时相同时跳过绑定. 设置之后不再使用{@link VersionedModel}的版本号.
+     *
+     * @param fingerprinter 为null时取消.
+     * @return self.
+     */
+    public CardPresenter setFingerprinter(Fingerprinter fingerprinter) {
+        mFingerprinter = fingerprinter;
+        mHasFingerprint = false;
+        return this;
+    }
+
+    /**
+     * 忘记上一次绑定的指纹, 下一次{@link #bind(Object)}一定会执行. 在卡片依赖Model以外的状态变化时调用.
+     */
+    public void invalidate() {
+        mHasFingerprint = false;
+    }
+
+    /**
+     * @return 因为Model没有变化而跳过的绑定次数.
+     */
+    public long getSkippedCount() {
+        return mSkippedCount;
+    }
+
+    /**
+     * @return 所有CardPresenter因为Model没有变化而跳过的绑定次数.
+     */
+    public static long getTotalSkippedCount() {
+        return sTotalSkippedCount;
+    }
+
+    public static void resetTotalSkippedCount() {
+        sTotalSkippedCount = 0;
+    }
+
+    /**
+     * 计算Model的指纹并与上一次绑定时比较, 同时记录新的指纹.
+     */
+    private boolean isUnchanged(Object model) {
+        long fingerprint;
+        boolean comparable;
+        if (model == null) {
+            mHasFingerprint = false;
+            return false;
+        } else if (mFingerprinter != null) {
+            fingerprint = mFingerprinter.fingerprint(model);
+            comparable = true;
+        } else if (model instanceof VersionedModel) {
+            // 版本号只在同一个对象上有意义
+            fingerprint = ((VersionedModel) model).getVersion();
+            comparable = model == mModel;
         } else {
-            ViewPresenter presenter = mPresenters.valueAt(i);
-            presenter.mView = elementView;
-            return presenter;
+            mHasFingerprint = false;
+            return false;
         }
+        boolean unchanged = comparable && mHasFingerprint && fingerprint == mLastFingerprint;
+        mLastFingerprint = fingerprint;
+        mHasFingerprint = true;
+        return unchanged;
+    }
+
+    private void observeModel(Object model) {
+        if (model == mObservedModel) {
+            return;
+        }
+        if (mObservedModel instanceof ObservableModel) {
+            ((ObservableModel) mObservedModel).removeOnModelChangedListener(mModelChangedListener);
+        }
+        if (model instanceof ObservableModel) {
+            ((ObservableModel) model).addOnModelChangedListener(mModelChangedListener);
+        }
+        mObservedModel = model;
+    }
+
+    /**
+     * 卡片的View结构被动态修改之后调用, 下一次绑定时重新查找所有ViewId对应的View.
+     */
+    public void invalidateViews() {
+        mSlotsDirty = true;
+    }
+
+    private void ensureSlots() {
+        if (!mSlotsDirty) {
+            return;
+        }
+        int size = mPresenters.size();
+        int[] ids = new int[size];
+        ViewPresenter[] presenters = new ViewPresenter[size];
+        View[] views = new View[size];
+        long[] properties = new long[size];
+        boolean[] deferrable = new boolean[size];
+        int[] priorities = new int[size];
+        boolean[] flingSafe = new boolean[size];
+        for (int i = 0; i < size; ++i) {
+            int viewId = mPresenters.keyAt(i);
+            ids[i] = viewId;
+            presenters[i] = mPresenters.valueAt(i);
+            views[i] = viewId == CARD_ID ? mView : mView.findViewById(viewId);
+            properties[i] = mObservedProperties.get(viewId, 0L);
+            priorities[i] = mPriorities.get(viewId, PRIORITY_IMMEDIATE);
+            flingSafe[i] = presenters[i].isFlingSafe();
+            int policy = presenters[i].getVisibilityPolicy();
+            deferrable[i] = policy == ViewPresenter.VISIBILITY_LAZY
+                    || (policy == ViewPresenter.VISIBILITY_DEFAULT && mDeferInvisible);
+            if (views[i] == null) {
+                Log.w(LOG_TAG, "IGNORED, VIEW ID NOT FOUND:" + Integer.toHexString(viewId));
+            }
+        }
+        mSlotIds = ids;
+        mSlotPresenters = presenters;
+        mSlotViews = views;
+        mSlotProperties = properties;
+        mSlotDeferrable = deferrable;
+        mSlotPending = new boolean[size];
+        mSlotPriorities = priorities;
+        mSlotStaged = new boolean[size];
+        mSlotFlingSafe = flingSafe;
+        mSlotsDirty = false;
     }
 
     public View view() {
@@ -140,6 +759,7 @@ public final class CardPresenter implements Presenter {
      * @see SerialPresenter
      */
     public CardPresenter set(int id, ViewPresenter presenter, boolean replace) {
+        mHasFingerprint = false;
         if (presenter == null) {
             if (replace) { // remove all exist for the id
                 ViewPresenter oldPresenter = mPresenters.get(id);
@@ -147,6 +767,9 @@ public final class CardPresenter implements Presenter {
                     oldPresenter.unbind();
                 }
                 mPresenters.remove(id);
+                mObservedProperties.remove(id);
+                mPriorities.delete(id);
+                mSlotsDirty = true;
             }
             return this;
         }
@@ -157,10 +780,17 @@ public final class CardPresenter implements Presenter {
         }
         presenter.mCardPresenter = this;
         if (!replace && exist != null) { // already exist
+            if (SerialPresenter.isFlattenable(exist)) {
+                // 追加到已有的序列上, 不再嵌套
+                ((SerialPresenter) exist).append(presenter);
+                mSlotsDirty = true;
+                return this;
+            }
             presenter = new SerialPresenter(exist, presenter);
             presenter.mCardPresenter = this;
         }
         mPresenters.put(id, presenter);
+        mSlotsDirty = true;
         if (replace && exist != null && exist.hasBind()) {
             exist.unbind();
         }
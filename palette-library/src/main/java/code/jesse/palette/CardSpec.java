@@ -0,0 +1,195 @@
+package code.jesse.palette;
+
+import android.util.SparseArray;
+import android.util.SparseIntArray;
+import android.view.View;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import code.jesse.palette.model.BaseObservableModel;
+import code.jesse.palette.model.Fingerprinter;
+import code.jesse.palette.tools.ViewInflater;
+
+/**
+ * 一种卡片的组合描述: layout, 每个ViewId上的Presenter工厂(有序)以及观察的属性.
+ * <p/>
+ * CardSpec是不可变的, 每种卡片只需要创建一次, 之后用{@link #create(ViewGroup)}为每一行创建CardPresenter,
+ * 避免在每次onCreatePresenter中重复set/add. 创建的CardPresenter按ViewId的顺序一次填好, 容器预先分配好大小,
+ * 同一ViewId上的多个Presenter直接组合为一个{@link SerialPresenter}.
+ * <p/>
+ * Example:
+ * private static final CardSpec SPEC = CardSpec.builder(R.layout.card_app)
+ * .add(R.id.title, new PresenterFactory() {...})
+ * .add(new PresenterFactory() {...})
+ * .observe(R.id.progress, AppModel.PROPERTY_PROGRESS)
+ * .build();
+ * <p/>
+ * protected CardPresenter onCreatePresenter(int position, ViewGroup parent) {
+ * return SPEC.create(parent);
+ * }
+ *
+ * @author zhulantian@gmail.com
+ */
+public final class CardSpec {
+
+    private final int mLayoutId;
+    private final int[] mIds;
+    private final PresenterFactory[][] mFactories;
+    private final int[][] mObservedProperties;
+    private final int[] mPriorities;
+    private final Fingerprinter mFingerprinter;
+
+    private CardSpec(Builder builder) {
+        mLayoutId = builder.mLayoutId;
+        mFingerprinter = builder.mFingerprinter;
+        SparseArray<List<PresenterFactory>> factories = builder.mFactories;
+        // SparseArray按ViewId有序, 创建CardPresenter时每次put都是追加
+        int size = factories.size();
+        mIds = new int[size];
+        mFactories = new PresenterFactory[size][];
+        mObservedProperties = new int[size][];
+        mPriorities = new int[size];
+        for (int i = 0; i < size; ++i) {
+            mIds[i] = factories.keyAt(i);
+            List<PresenterFactory> list = factories.valueAt(i);
+            mFactories[i] = list.toArray(new PresenterFactory[list.size()]);
+            mObservedProperties[i] = builder.mObservedProperties.get(mIds[i]);
+            mPriorities[i] = builder.mPriorities.get(mIds[i], CardPresenter.PRIORITY_IMMEDIATE);
+        }
+    }
+
+    public static Builder builder(int layoutId) {
+        return new Builder(layoutId);
+    }
+
+    public int getLayoutId() {
+        return mLayoutId;
+    }
+
+    /**
+     * inflate卡片的layout并创建CardPresenter.
+     *
+     * @param parent 容器.
+     */
+    public CardPresenter create(ViewGroup parent) {
+        return create((View) ViewInflater.inflate(parent, mLayoutId));
+    }
+
+    /**
+     * 为已经inflate好的卡片创建CardPresenter.
+     *
+     * @param view 卡片的根View.
+     */
+    public CardPresenter create(View view) {
+        int size = mIds.length;
+        CardPresenter presenter = new CardPresenter(view, size);
+        for (int i = 0; i < size; ++i) {
+            PresenterFactory[] factories = mFactories[i];
+            ViewPresenter viewPresenter;
+            if (factories.length == 1) {
+                viewPresenter = factories[0].create();
+            } else {
+                ViewPresenter[] presenters = new ViewPresenter[factories.length];
+                for (int j = 0; j < factories.length; ++j) {
+                    presenters[j] = factories[j].create();
+                }
+                viewPresenter = new SerialPresenter(presenters);
+            }
+            presenter.set(mIds[i], viewPresenter, true);
+            if (mObservedProperties[i] != null) {
+                presenter.observe(mIds[i], mObservedProperties[i]);
+            }
+            if (mPriorities[i] != CardPresenter.PRIORITY_IMMEDIATE) {
+                presenter.setPriority(mIds[i], mPriorities[i]);
+            }
+        }
+        if (mFingerprinter != null) {
+            presenter.setFingerprinter(mFingerprinter);
+        }
+        return presenter;
+    }
+
+    /**
+     * 为每张卡片创建新的ViewPresenter, ViewPresenter与View一一对应, 不能在卡片之间共享.
+     */
+    public interface PresenterFactory {
+        ViewPresenter create();
+    }
+
+    public static final class Builder {
+
+        private final int mLayoutId;
+        private final SparseArray<List<PresenterFactory>> mFactories = new SparseArray<>();
+        private final SparseArray<int[]> mObservedProperties = new SparseArray<>();
+        private final SparseIntArray mPriorities = new SparseIntArray();
+        private Fingerprinter mFingerprinter;
+
+        private Builder(int layoutId) {
+            mLayoutId = layoutId;
+        }
+
+        /**
+         * 在ViewId上追加一个Presenter, 同一ViewId上的Presenter按添加顺序串行绑定.
+         */
+        public Builder add(int id, PresenterFactory factory) {
+            if (factory == null) {
+                throw new IllegalArgumentException("factory == null");
+            }
+            List<PresenterFactory> list = mFactories.get(id);
+            if (list == null) {
+                list = new ArrayList<>(1);
+                mFactories.put(id, list);
+            }
+            list.add(factory);
+            return this;
+        }
+
+        /**
+         * 在整张卡片上追加一个Presenter.
+         */
+        public Builder add(PresenterFactory factory) {
+            return add(CardPresenter.CARD_ID, factory);
+        }
+
+        /**
+         * @see CardPresenter#observe(int, int...)
+         */
+        public Builder observe(int id, int... propertyIds) {
+            for (int propertyId : propertyIds) {
+                // 提前检查范围
+                BaseObservableModel.propertyFlag(propertyId);
+            }
+            int[] exist = mObservedProperties.get(id);
+            if (exist != null) {
+                int[] merged = new int[exist.length + propertyIds.length];
+                System.arraycopy(exist, 0, merged, 0, exist.length);
+                System.arraycopy(propertyIds, 0, merged, exist.length, propertyIds.length);
+                propertyIds = merged;
+            }
+            mObservedProperties.put(id, propertyIds);
+            return this;
+        }
+
+        /**
+         * @see CardPresenter#setPriority(int, int)
+         */
+        public Builder priority(int id, int priority) {
+            mPriorities.put(id, priority);
+            return this;
+        }
+
+        /**
+         * @see CardPresenter#setFingerprinter(Fingerprinter)
+         */
+        public Builder fingerprinter(Fingerprinter fingerprinter) {
+            mFingerprinter = fingerprinter;
+            return this;
+        }
+
+        public CardSpec build() {
+            return new CardSpec(this);
+        }
+    }
+}
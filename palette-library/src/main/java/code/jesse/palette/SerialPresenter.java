@@ -6,34 +6,114 @@ package code.jesse.palette;
  * 以及提高代码可读性。
  * <p/>
  * 请注意，presenters是有序的。
+ * <p/>
+ * SerialPresenter总是保持为一层: 组合或者追加另一个SerialPresenter时会展开它包含的Presenter,
+ * 因此对同一个viewId多次add也只是在一个数组上追加. 子类不会被展开.
  *
  * @author zhulantian@gmail.com
  */
 public class SerialPresenter extends ViewPresenter {
 
-    private final ViewPresenter[] mPresenters;
+    private ViewPresenter[] mPresenters;
+    private int mSize;
 
     public SerialPresenter(ViewPresenter... presenters) {
-        this.mPresenters = presenters;
+        this.mPresenters = new ViewPresenter[presenters == null ? 0 : presenters.length];
+        if (presenters != null) {
+            for (ViewPresenter presenter : presenters) {
+                append(presenter);
+            }
+        }
+    }
+
+    /**
+     * 在序列末尾追加一个Presenter.
+     *
+     * @return self.
+     */
+    public SerialPresenter append(ViewPresenter presenter) {
+        if (presenter == null) {
+            return this;
+        }
+        if (presenter == this) {
+            throw new IllegalArgumentException("Can not append to itself!");
+        }
+        if (isFlattenable(presenter)) {
+            SerialPresenter serial = (SerialPresenter) presenter;
+            for (int i = 0; i < serial.mSize; ++i) {
+                append(serial.mPresenters[i]);
+            }
+            return this;
+        }
+        if (mSize == mPresenters.length) {
+            ViewPresenter[] presenters = new ViewPresenter[Math.max(4, mSize * 2)];
+            System.arraycopy(mPresenters, 0, presenters, 0, mSize);
+            mPresenters = presenters;
+        }
+        mPresenters[mSize++] = presenter;
+        return this;
+    }
+
+    /**
+     * @return 是否可以把presenter展开到序列中, 只展开SerialPresenter本身, 子类可能有额外的逻辑.
+     */
+    static boolean isFlattenable(ViewPresenter presenter) {
+        return presenter.getClass() == SerialPresenter.class;
     }
 
+    /**
+     * 任意一个Presenter需要立即绑定时立即绑定, 全部可以推迟时才推迟.
+     */
     @Override
-    public void bind(Object model) {
-        if (mPresenters == null || mPresenters.length == 0) {
-            return;
+    public int getVisibilityPolicy() {
+        boolean allLazy = mSize > 0;
+        for (int i = 0; i < mSize; ++i) {
+            int policy = mPresenters[i].getVisibilityPolicy();
+            if (policy == VISIBILITY_EAGER) {
+                return VISIBILITY_EAGER;
+            }
+            allLazy &= policy == VISIBILITY_LAZY;
+        }
+        return allLazy ? VISIBILITY_LAZY : VISIBILITY_DEFAULT;
+    }
+
+    /**
+     * 全部Presenter都可以在滑动中绑定时才可以.
+     */
+    @Override
+    public boolean isFlingSafe() {
+        for (int i = 0; i < mSize; ++i) {
+            if (!mPresenters[i].isFlingSafe()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public void onFlingBind(Object model) {
+        ViewPresenter[] presenters = mPresenters;
+        for (int i = 0; i < mSize; ++i) {
+            ViewPresenter presenter = presenters[i];
+            presenter.mView = mView;
+            presenter.mCardPresenter = mCardPresenter;
+            presenter.onFlingBind(model);
         }
-        for (int i = 0; i < mPresenters.length; ++i) {
-            passBind(mPresenters[i], model);
+    }
+
+    @Override
+    public void bind(Object model) {
+        ViewPresenter[] presenters = mPresenters;
+        for (int i = 0; i < mSize; ++i) {
+            passBind(presenters[i], model);
         }
     }
 
     @Override
     public void unbind() {
-        if (mPresenters == null || mPresenters.length == 0) {
-            return;
-        }
-        for (int i = 0; i < mPresenters.length; ++i) {
-            mPresenters[i].unbind();
+        ViewPresenter[] presenters = mPresenters;
+        for (int i = 0; i < mSize; ++i) {
+            presenters[i].unbind();
         }
     }
 }
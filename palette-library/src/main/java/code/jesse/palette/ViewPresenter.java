@@ -5,6 +5,8 @@ import android.content.res.Resources;
 import android.view.View;
 
 import code.jesse.palette.tools.ViewHelper;
+import code.jesse.palette.trace.BindTracer;
+import code.jesse.palette.trace.Tracing;
 
 /**
  * View绑定的基本单元，从属于CardPresenter，负责将数据源Model绑定到Card的一个View单元上，不能单独存在。
@@ -46,6 +48,21 @@ import code.jesse.palette.tools.ViewHelper;
  */
 public abstract class ViewPresenter implements Presenter {
 
+    /**
+     * 跟随CardPresenter的设置, 参见{@link CardPresenter#setDeferInvisible(boolean)}.
+     */
+    public static final int VISIBILITY_DEFAULT = 0;
+
+    /**
+     * View不可见时总是推迟到View可见时绑定, 用于隐藏区域中开销大的Presenter.
+     */
+    public static final int VISIBILITY_LAZY = 1;
+
+    /**
+     * 总是立即绑定, 用于会修改View可见性的Presenter.
+     */
+    public static final int VISIBILITY_EAGER = 2;
+
     View mView;
     CardPresenter mCardPresenter;
     private ViewHelper mHelper;
@@ -82,6 +99,33 @@ public abstract class ViewPresenter implements Presenter {
         return context().getString(id);
     }
 
+    /**
+     * 声明View不可见时是否可以推迟绑定. 推迟的Presenter在View变为可见之后、绘制之前绑定当时的Model.
+     * <p/>
+     * 会把View从不可见改为可见的Presenter必须返回{@link #VISIBILITY_EAGER}, 否则它永远不会被绑定.
+     *
+     * @return VISIBILITY_DEFAULT, VISIBILITY_LAZY或VISIBILITY_EAGER.
+     */
+    public int getVisibilityPolicy() {
+        return VISIBILITY_DEFAULT;
+    }
+
+    /**
+     * 声明列表快速滑动时是否可以绑定, 参见{@link CardPresenter#bindLightweight(Object)}. 只有开销很小、
+     * 并且滑动中必须显示的Presenter(例如标题)才应该返回true.
+     */
+    public boolean isFlingSafe() {
+        return false;
+    }
+
+    /**
+     * 快速滑动中代替{@link #bind(Object)}调用, 此时View上还是之前那一行的内容, 可以在这里清除或者显示占位,
+     * 例如清除图片. 滑动停止后会对同一个Model调用{@link #bind(Object)}.
+     *
+     * @param model 数据源Model。
+     */
+    public void onFlingBind(Object model) {}
+
     public final boolean hasBind() {
         return mView != null;
     }
@@ -120,7 +164,14 @@ public abstract class ViewPresenter implements Presenter {
                 && (presenter.mView == null || presenter.mView == targetView)) {
             presenter.mView = targetView;
             presenter.mCardPresenter = mCardPresenter;
-            presenter.bind(model);
+            BindTracer tracer = Tracing.getTracer();
+            if (tracer == null) {
+                presenter.bind(model);
+            } else {
+                tracer.beginSection(BindTracer.SECTION_PRESENTER_BIND, presenter, targetView.getId());
+                presenter.bind(model);
+                tracer.endSection(BindTracer.SECTION_PRESENTER_BIND);
+            }
         } else {
             throw new IllegalArgumentException("Must be in same card!");
         }
@@ -0,0 +1,127 @@
+package code.jesse.palette.adapter;
+
+import android.os.Handler;
+import android.os.Looper;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 在后台线程比较新旧列表, 在主线程发布新列表和变化, 供Adapter实现submitList.
+ * <p/>
+ * 每次提交都会使之前还没有发布的提交失效, 只有最新的一次提交会被发布. 只应在主线程调用.
+ * <p/>
+ * 新旧列表都不会被复制, 主线程上没有O(n)的开销: 提交的列表和当前列表在比较期间都不能被修改,
+ * 发布时应替换当前列表的引用, 而不是修改当前列表.
+ *
+ * @author zhulantian@gmail.com
+ */
+public class AsyncListDiffer<T> {
+
+    private static ExecutorService sDefaultExecutor;
+
+    private final Handler mMainHandler = new Handler(Looper.getMainLooper());
+    private final ItemComparator<? super T> mComparator;
+    private final Callback<T> mCallback;
+    private Executor mExecutor;
+
+    /**
+     * 最近一次提交的编号, 用于丢弃过期的结果.
+     */
+    private volatile int mGeneration;
+
+    /**
+     * 发布结果的回调, 在主线程调用.
+     */
+    public interface Callback<T> {
+
+        /**
+         * @return 当前的列表, 作为比较的旧列表, 在比较期间不能被修改.
+         */
+        List<T> getCurrentList();
+
+        /**
+         * 发布新列表.
+         *
+         * @param newList 新列表.
+         * @param result  与旧列表的差异.
+         */
+        void onListDiffed(List<T> newList, ListDiffer.DiffResult result);
+    }
+
+    public AsyncListDiffer(ItemComparator<? super T> comparator, Callback<T> callback) {
+        mComparator = comparator;
+        mCallback = callback;
+    }
+
+    /**
+     * @param executor 比较列表使用的线程池, 默认为共享的单个后台线程.
+     */
+    public void setExecutor(Executor executor) {
+        mExecutor = executor;
+    }
+
+    /**
+     * 提交新列表, 比较完成后通过{@link Callback#onListDiffed(List, ListDiffer.DiffResult)}发布.
+     *
+     * @param list 新列表, 不会被复制, 提交之后不能再修改.
+     */
+    public void submitList(List<T> list) {
+        final int generation = ++mGeneration;
+        final List<T> oldList = mCallback.getCurrentList();
+        final List<T> newList = list == null ? new ArrayList<T>() : list;
+        getExecutor().execute(new Runnable() {
+            @Override
+            public void run() {
+                if (generation != mGeneration) {
+                    // 已经有更新的提交, 不再比较
+                    return;
+                }
+                final ListDiffer.DiffResult result = ListDiffer.diff(oldList, newList, mComparator);
+                mMainHandler.post(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (generation == mGeneration) {
+                            mCallback.onListDiffed(newList, result);
+                        }
+                    }
+                });
+            }
+        });
+    }
+
+    /**
+     * 使还没有发布的提交失效, 在直接修改列表之前调用.
+     */
+    public void cancel() {
+        mGeneration++;
+    }
+
+    private Executor getExecutor() {
+        return mExecutor != null ? mExecutor : getDefaultExecutor();
+    }
+
+    /**
+     * @return 共享的单个低优先级后台线程.
+     */
+    private static Executor getDefaultExecutor() {
+        synchronized (AsyncListDiffer.class) {
+            if (sDefaultExecutor == null) {
+                sDefaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "palette-worker");
+                        thread.setDaemon(true);
+                        thread.setPriority(Thread.MIN_PRIORITY);
+                        return thread;
+                    }
+                });
+            }
+            return sDefaultExecutor;
+        }
+    }
+}
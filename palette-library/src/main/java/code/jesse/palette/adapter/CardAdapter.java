@@ -1,40 +1,288 @@
 package code.jesse.palette.adapter;
 
+import android.util.SparseArray;
 import android.view.View;
 import android.view.ViewGroup;
+import android.widget.AbsListView;
 import android.widget.BaseAdapter;
+import android.widget.ListAdapter;
+import android.widget.ListView;
+import android.widget.WrapperListAdapter;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Executor;
 
 import code.jesse.palette.CardPresenter;
 import code.jesse.palette.tools.ViewTagger;
+import code.jesse.palette.trace.BindTracer;
+import code.jesse.palette.trace.Tracing;
 
 /**
  * 使用Presenter(MVP)模式的ListAdapter.
+ * <p/>
+ * 使用{@link CardTypeRegistry}创建时, 每种卡片对应一个view type, 卡片由注册的CardSpec创建.
+ * <p/>
+ * {@link #submitList(List)}在后台比较新旧列表, 列表没有变化时不刷新. 注意ListView没有局部刷新, 列表有任何变化时
+ * 仍然会重新绑定所有可见的卡片, 比较只省去了没有变化时的刷新, 并提供位置的对应关系(参见
+ * {@link #onListSubmitted(ListDiffer.DiffResult)}); 只有一张卡片的属性变化时使用{@link #notifyItemChanged(int, Object)}.
+ * {@link #notifyItemChanged(int, Object)}只重新绑定一张卡片上payload指明的属性.
+ * <p/>
+ * 数据很多时可以使用{@link #setPagedList(PagedList)}, 只在内存中保留访问位置附近的数据, 还没有加载的位置
+ * 绑定null(使用类型表时为占位卡片).
+ * <p/>
+ * 可以通过{@link CardPrefetcher}在主线程空闲时预先创建并绑定即将出现的卡片, getView时直接使用.
+ * <p/>
+ * Adapter会把自己设置为列表的{@link AbsListView.RecyclerListener}, 进入回收池的卡片停止监听Model的变化
+ * (参见{@link CardPresenter#detach()}); 需要自己的RecyclerListener时, 在其中调用{@link #onMovedToScrapHeap(View)}.
+ * 页面销毁时调用{@link #release()}.
  *
  * @author zhulantian@gmail.com
  */
-public abstract class CardAdapter<T> extends BaseAdapter {
+public abstract class CardAdapter<T> extends BaseAdapter implements AbsListView.RecyclerListener {
 
-    private final List<T> mList;
+    private List<T> mList;
+    private final CardTypeRegistry mRegistry;
+    private ScrollStateTracker mScrollStateTracker;
+    private AsyncListDiffer<T> mDiffer;
+
+    /**
+     * 最近一次getView的列表, 用于按position查找屏幕上的卡片.
+     */
+    private AbsListView mListView;
+
+    /**
+     * 预先创建的卡片, 按position保存.
+     */
+    private final SparseArray<Prefetched> mPrefetched = new SparseArray<>();
 
     public CardAdapter() {
+        this(null);
+    }
+
+    /**
+     * @param registry 卡片类型表, 为null时只有一种view type, 需要覆盖{@link #onCreatePresenter(int, ViewGroup)}.
+     */
+    public CardAdapter(CardTypeRegistry registry) {
         mList = new ArrayList<>();
+        mRegistry = registry;
+    }
+
+    public CardTypeRegistry getRegistry() {
+        return mRegistry;
     }
 
     public void setList(List<T> list) {
-        mList.clear();
-        if (list != null) {
-            mList.addAll(list);
+        if (mDiffer != null) {
+            mDiffer.cancel();
         }
+        detachPagedList();
+        // 替换而不是修改当前列表, 它可能是submitList()提交的列表, 或者正在后台比较
+        mList = list == null ? new ArrayList<T>() : new ArrayList<>(list);
         notifyDataSetChanged();
     }
 
+    /**
+     * @return 当前的列表, 不应直接修改.
+     */
     public List<T> getList() {
         return mList;
     }
 
+    /**
+     * 使用分页加载的列表作为数据, 页加载完成或者追加数据时刷新列表. 之后调用{@link #setList(List)}或者
+     * {@link #submitList(List)}会换回普通列表.
+     */
+    public void setPagedList(PagedList<T> list) {
+        if (mDiffer != null) {
+            mDiffer.cancel();
+        }
+        detachPagedList();
+        if (list == null) {
+            mList = new ArrayList<>();
+        } else {
+            list.setCallback(new ListDiffer.ListUpdateCallback() {
+                @Override
+                public void onInserted(int position, int count) {
+                    notifyDataSetChanged();
+                }
+
+                @Override
+                public void onRemoved(int position, int count) {
+                    notifyDataSetChanged();
+                }
+
+                @Override
+                public void onChanged(int position, int count) {
+                    notifyDataSetChanged();
+                }
+            });
+            mList = list;
+        }
+        notifyDataSetChanged();
+    }
+
+    private void detachPagedList() {
+        if (mList instanceof PagedList) {
+            ((PagedList<T>) mList).setCallback(null);
+            mList = new ArrayList<>();
+        }
+    }
+
+    /**
+     * 在后台线程与当前列表比较, 完成后在主线程替换列表. 只有内容发生变化时才刷新列表, 之前还没有完成的提交被丢弃.
+     *
+     * @param list 新列表, 不会被复制, 提交之后不能再修改.
+     * @see #getItemComparator()
+     */
+    public void submitList(List<T> list) {
+        if (mList instanceof PagedList) {
+            // 不与分页列表比较, 否则会加载全部数据
+            setList(list);
+            return;
+        }
+        getDiffer().submitList(list);
+    }
+
+    /**
+     * @param executor {@link #submitList(List)}比较列表使用的线程池.
+     */
+    public void setDiffExecutor(Executor executor) {
+        getDiffer().setExecutor(executor);
+    }
+
+    /**
+     * @return {@link #submitList(List)}比较列表项的方式, 默认为{@link ItemComparator#DEFAULT}.
+     */
+    protected ItemComparator<? super T> getItemComparator() {
+        return ItemComparator.DEFAULT;
+    }
+
+    /**
+     * 在{@link #submitList(List)}的新列表发布之后调用, 可以用来根据位置变化保持滚动位置.
+     *
+     * @param result 与旧列表的差异.
+     */
+    protected void onListSubmitted(ListDiffer.DiffResult result) {
+    }
+
+    private AsyncListDiffer<T> getDiffer() {
+        if (mDiffer == null) {
+            mDiffer = new AsyncListDiffer<>(getItemComparator(), new AsyncListDiffer.Callback<T>() {
+                @Override
+                public List<T> getCurrentList() {
+                    return mList;
+                }
+
+                @Override
+                public void onListDiffed(List<T> newList, ListDiffer.DiffResult result) {
+                    detachPagedList();
+                    // 没有变化时也使用新列表, 其中的对象可能是新的
+                    mList = newList;
+                    if (result.hasChanges()) {
+                        notifyDataSetChanged();
+                    }
+                    onListSubmitted(result);
+                }
+            });
+        }
+        return mDiffer;
+    }
+
+    /**
+     * 数据变化之后, 预先创建的卡片在使用时需要重新绑定.
+     */
+    @Override
+    public void notifyDataSetChanged() {
+        for (int i = 0; i < mPrefetched.size(); ++i) {
+            mPrefetched.valueAt(i).stale = true;
+        }
+        super.notifyDataSetChanged();
+    }
+
+    /**
+     * 只重新绑定position上的卡片中payload指明的属性, 参见{@link CardPresenter#bind(Object, Object)}.
+     * 卡片不在屏幕上时什么也不做, 下一次getView时会完整绑定.
+     *
+     * @param position 变化的position.
+     * @param payload  变化的属性, 为null时完整绑定这张卡片.
+     */
+    public void notifyItemChanged(int position, Object payload) {
+        Prefetched prefetched = mPrefetched.get(position);
+        if (prefetched != null) {
+            prefetched.stale = true;
+        }
+        CardPresenter presenter = findVisiblePresenter(position);
+        if (presenter != null) {
+            presenter.bind(getItem(position), payload);
+        }
+    }
+
+    /**
+     * @return 列表中当前显示position的卡片, 不在屏幕上时返回null.
+     */
+    private CardPresenter findVisiblePresenter(int position) {
+        AbsListView listView = mListView;
+        if (listView == null) {
+            return null;
+        }
+        ListAdapter adapter = listView.getAdapter();
+        if (adapter instanceof WrapperListAdapter) {
+            adapter = ((WrapperListAdapter) adapter).getWrappedAdapter();
+        }
+        if (adapter != this) {
+            // 列表已经换了Adapter
+            return null;
+        }
+        // ListView有HeaderView时, position包含了HeaderView
+        int offset = listView instanceof ListView ? ((ListView) listView).getHeaderViewsCount() : 0;
+        int index = position + offset - listView.getFirstVisiblePosition();
+        if (index < 0 || index >= listView.getChildCount()) {
+            return null;
+        }
+        return ViewTagger.getCardPresenter(listView.getChildAt(index));
+    }
+
+    @Override
+    public void notifyDataSetInvalidated() {
+        clearPrefetched();
+        super.notifyDataSetInvalidated();
+    }
+
+    /**
+     * 卡片进入列表的回收池时停止监听Model, 否则长期存在的Model会持有不在屏幕上的卡片, 并在每次变化时重新绑定它.
+     */
+    @Override
+    public void onMovedToScrapHeap(View view) {
+        CardPresenter presenter = ViewTagger.getCardPresenter(view);
+        if (presenter != null) {
+            presenter.detach();
+        }
+    }
+
+    /**
+     * 停止所有卡片对Model的监听并丢弃预先创建的卡片, 在页面销毁时调用. 之后再次显示的卡片会重新监听.
+     */
+    public void release() {
+        clearPrefetched();
+        AbsListView listView = mListView;
+        if (listView == null) {
+            return;
+        }
+        for (int i = 0; i < listView.getChildCount(); ++i) {
+            onMovedToScrapHeap(listView.getChildAt(i));
+        }
+    }
+
+    /**
+     * 设置之后, 列表快速滑动时只做轻量绑定, 参见{@link CardPresenter#bindLightweight(Object)}.
+     *
+     * @param tracker 为null时总是完整绑定.
+     */
+    public void setScrollStateTracker(ScrollStateTracker tracker) {
+        mScrollStateTracker = tracker;
+    }
+
     @Override
     public int getCount() {
         return mList.size();
@@ -50,35 +298,147 @@ public abstract class CardAdapter<T> extends BaseAdapter {
         return position;
     }
 
+    @Override
+    public int getViewTypeCount() {
+        return mRegistry == null ? 1 : Math.max(1, mRegistry.getTypeCount());
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return mRegistry == null ? 0 : mRegistry.getCardType(getItem(position));
+    }
+
     @Override
     public View getView(int position, View convertView, ViewGroup parent) {
-        CardPresenter presenter;
-        if (convertView == null) {
-            presenter = onCreatePresenter(position, parent);
-            ViewTagger.setCardPresenterTag(presenter.view(), presenter);
-        } else {
-            presenter = ViewTagger.getCardPresenter(convertView);
+        BindTracer tracer = Tracing.getTracer();
+        if (tracer != null) {
+            tracer.beginSection(BindTracer.SECTION_GET_VIEW, this, 0);
+        }
+        if (parent instanceof AbsListView && parent != mListView) {
+            mListView = (AbsListView) parent;
+            mListView.setRecyclerListener(this);
+        }
+        CardPresenter presenter = takePrefetched(position);
+        if (presenter == null) {
+            if (convertView == null) {
+                presenter = createPresenter(position, parent);
+            } else {
+                presenter = ViewTagger.getCardPresenter(convertView);
+            }
+            onBindPresenter(position, presenter);
+        }
+        if (tracer != null) {
+            tracer.endSection(BindTracer.SECTION_GET_VIEW);
         }
-        onBindPresenter(position, presenter);
         return presenter.view();
     }
 
     /**
-     * 创建CardPresenter.
+     * @return 预先创建好的卡片, 数据变化过时重新绑定. 没有或者view type已经不同时返回null.
+     */
+    private CardPresenter takePrefetched(int position) {
+        Prefetched prefetched = mPrefetched.get(position);
+        if (prefetched == null) {
+            return null;
+        }
+        mPrefetched.remove(position);
+        if (prefetched.viewType != getItemViewType(position)) {
+            // 数据变化之后这个位置需要另一种卡片, 丢弃
+            prefetched.presenter.unbind();
+            return null;
+        }
+        CardPresenter presenter = prefetched.presenter;
+        if (prefetched.stale || prefetched.item != getItem(position)) {
+            onBindPresenter(position, presenter);
+        } else if (presenter.isDegraded() && !isFlinging()) {
+            // 在快速滑动中预先创建的卡片只做了轻量绑定
+            presenter.completeBind();
+        }
+        return presenter;
+    }
+
+    boolean hasPrefetched(int position) {
+        return mPrefetched.get(position) != null;
+    }
+
+    /**
+     * 预先创建并绑定position上的卡片.
+     */
+    void prefetch(int position, ViewGroup parent) {
+        CardPresenter presenter = createPresenter(position, parent);
+        onBindPresenter(position, presenter);
+        mPrefetched.put(position,
+                new Prefetched(presenter, getItem(position), getItemViewType(position)));
+    }
+
+    /**
+     * 丢弃[from, to]以外的预先创建的卡片. 丢弃的卡片都要解绑, 否则会一直监听Model并在变化时重新绑定.
+     */
+    void trimPrefetched(int from, int to) {
+        for (int i = mPrefetched.size() - 1; i >= 0; --i) {
+            int position = mPrefetched.keyAt(i);
+            if (position < from || position > to) {
+                mPrefetched.valueAt(i).presenter.unbind();
+                mPrefetched.removeAt(i);
+            }
+        }
+    }
+
+    void clearPrefetched() {
+        for (int i = 0; i < mPrefetched.size(); ++i) {
+            mPrefetched.valueAt(i).presenter.unbind();
+        }
+        mPrefetched.clear();
+    }
+
+    private CardPresenter createPresenter(int position, ViewGroup parent) {
+        CardPresenter presenter = onCreatePresenter(position, parent);
+        ViewTagger.setCardPresenterTag(presenter.view(), presenter);
+        return presenter;
+    }
+
+    /**
+     * 创建CardPresenter, 默认使用卡片类型表中的CardSpec.
      *
      * @param position 当前Item的position.
      * @param parent   容器.
      * @return the card presenter.
      */
-    protected abstract CardPresenter onCreatePresenter(int position, ViewGroup parent);
+    protected CardPresenter onCreatePresenter(int position, ViewGroup parent) {
+        if (mRegistry == null) {
+            throw new IllegalStateException("No CardTypeRegistry, onCreatePresenter() must be overridden");
+        }
+        return mRegistry.create(getItemViewType(position), parent);
+    }
 
     /**
-     * 使用CardPresenter绑定一张Card.
+     * 使用CardPresenter绑定一张Card. 使用{@link PagedList}时, 还没有加载的位置上Item为null.
      *
      * @param position  当前Item的position.
      * @param presenter 使用的CardPresenter.
      */
     protected void onBindPresenter(int position, CardPresenter presenter) {
-        presenter.bind(getItem(position));
+        if (isFlinging()) {
+            presenter.bindLightweight(getItem(position));
+        } else {
+            presenter.bind(getItem(position));
+        }
+    }
+
+    private boolean isFlinging() {
+        return mScrollStateTracker != null && mScrollStateTracker.isFlinging();
+    }
+
+    private static final class Prefetched {
+        final CardPresenter presenter;
+        final Object item;
+        final int viewType;
+        boolean stale;
+
+        Prefetched(CardPresenter presenter, Object item, int viewType) {
+            this.presenter = presenter;
+            this.item = item;
+            this.viewType = viewType;
+        }
     }
 }
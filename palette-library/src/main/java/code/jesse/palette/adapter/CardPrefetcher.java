@@ -0,0 +1,96 @@
+package code.jesse.palette.adapter;
+
+import android.os.Looper;
+import android.os.MessageQueue;
+import android.widget.AbsListView;
+import android.widget.ListView;
+
+/**
+ * 在主线程空闲时, 沿滑动方向预先创建并绑定接下来的几张卡片, {@link CardAdapter#getView}时直接使用.
+ * <p/>
+ * 每次空闲只创建一张卡片, 离开可见范围太远的预创建卡片会被丢弃. 数据变化之后预创建的卡片在使用时重新绑定.
+ * <p/>
+ * Example:
+ * CardPrefetcher prefetcher = new CardPrefetcher(adapter, listView, 3);
+ * prefetcher.start();
+ * ...
+ * prefetcher.stop();
+ *
+ * @author zhulantian@gmail.com
+ */
+public class CardPrefetcher implements MessageQueue.IdleHandler {
+
+    private final CardAdapter<?> mAdapter;
+    private final AbsListView mListView;
+    private final int mCount;
+
+    private boolean mStarted;
+    private int mLastFirstPosition = -1;
+    private boolean mScrollingUp;
+
+    /**
+     * @param adapter  列表的Adapter.
+     * @param listView 列表, 同时作为创建卡片时的parent.
+     * @param count    沿滑动方向预创建的卡片数.
+     */
+    public CardPrefetcher(CardAdapter<?> adapter, AbsListView listView, int count) {
+        if (count <= 0) {
+            throw new IllegalArgumentException("count must be positive: " + count);
+        }
+        mAdapter = adapter;
+        mListView = listView;
+        mCount = count;
+    }
+
+    /**
+     * 开始预创建, 必须在主线程调用.
+     */
+    public void start() {
+        if (!mStarted) {
+            mStarted = true;
+            Looper.myQueue().addIdleHandler(this);
+        }
+    }
+
+    /**
+     * 停止预创建并丢弃已经预创建的卡片, 必须在主线程调用.
+     */
+    public void stop() {
+        if (mStarted) {
+            mStarted = false;
+            Looper.myQueue().removeIdleHandler(this);
+        }
+        mAdapter.clearPrefetched();
+    }
+
+    @Override
+    public boolean queueIdle() {
+        if (!mStarted) {
+            return false;
+        }
+        int count = mAdapter.getCount();
+        if (count == 0 || mListView.getChildCount() == 0) {
+            return true;
+        }
+        // ListView有HeaderView时, position包含了HeaderView
+        int offset = mListView instanceof ListView ? ((ListView) mListView).getHeaderViewsCount() : 0;
+        int first = mListView.getFirstVisiblePosition() - offset;
+        int last = mListView.getLastVisiblePosition() - offset;
+        if (mLastFirstPosition != -1 && first != mLastFirstPosition) {
+            mScrollingUp = first < mLastFirstPosition;
+        }
+        mLastFirstPosition = first;
+        mAdapter.trimPrefetched(first - mCount, last + mCount);
+        for (int i = 1; i <= mCount; ++i) {
+            int position = mScrollingUp ? first - i : last + i;
+            if (position < 0 || position >= count) {
+                break;
+            }
+            if (!mAdapter.hasPrefetched(position)) {
+                mAdapter.prefetch(position, mListView);
+                break;
+            }
+        }
+        return true;
+    }
+}
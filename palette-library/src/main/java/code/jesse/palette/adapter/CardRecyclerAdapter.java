@@ -0,0 +1,289 @@
+package code.jesse.palette.adapter;
+
+import android.support.v7.widget.RecyclerView;
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import code.jesse.palette.CardPresenter;
+import code.jesse.palette.model.StableIdModel;
+import code.jesse.palette.tools.ViewTagger;
+import code.jesse.palette.trace.BindTracer;
+import code.jesse.palette.trace.Tracing;
+
+/**
+ * 使用Presenter(MVP)模式的RecyclerView.Adapter, 与{@link CardAdapter}对应.
+ * <p/>
+ * CardPresenter由{@link CardViewHolder}持有; 不同的卡片通过{@link #getCardType(Object)}区分为不同的view type;
+ * Model实现{@link StableIdModel}时提供稳定id; 对列表的单项修改只通知变化的部分.
+ * 使用{@link CardTypeRegistry}创建时, 卡片类型和卡片的创建都来自类型表.
+ * {@link #submitList(List)}在后台比较新旧列表, 只通知变化的部分.
+ * notifyItemChanged(position, payload)只重新绑定payload指明的属性, 参见{@link CardPresenter#bind(Object, Object)}.
+ * 被回收的卡片会解绑, 以便释放对Model的监听.
+ * <p/>
+ * 当前列表在后台比较期间不会被修改: 修改(add, remove等)在列表可能被共享时先复制, 比较结果通过替换引用发布.
+ *
+ * @author zhulantian@gmail.com
+ */
+public abstract class CardRecyclerAdapter<T> extends RecyclerView.Adapter<CardViewHolder> {
+
+    private List<T> mList;
+
+    /**
+     * 当前列表是否可能正在后台比较, 或者是submitList()提交的列表, 是时修改之前先复制.
+     */
+    private boolean mListShared;
+    private final CardTypeRegistry mRegistry;
+    private AsyncListDiffer<T> mDiffer;
+
+    public CardRecyclerAdapter() {
+        this(null, false);
+    }
+
+    public CardRecyclerAdapter(boolean hasStableIds) {
+        this(null, hasStableIds);
+    }
+
+    /**
+     * @param registry     卡片类型表, 为null时需要覆盖{@link #onCreatePresenter(ViewGroup, int)}.
+     * @param hasStableIds Model是否都提供稳定id, 参见{@link #getItemId(Object)}.
+     */
+    public CardRecyclerAdapter(CardTypeRegistry registry, boolean hasStableIds) {
+        mList = new ArrayList<>();
+        mRegistry = registry;
+        setHasStableIds(hasStableIds);
+    }
+
+    public CardTypeRegistry getRegistry() {
+        return mRegistry;
+    }
+
+    public void setList(List<T> list) {
+        cancelDiff();
+        // 替换而不是修改当前列表, 它可能正在后台比较
+        mList = list == null ? new ArrayList<T>() : new ArrayList<>(list);
+        mListShared = false;
+        notifyDataSetChanged();
+    }
+
+    /**
+     * @return 当前的列表, 不应直接修改.
+     */
+    public List<T> getList() {
+        return mList;
+    }
+
+    public T getItem(int position) {
+        return mList.get(position);
+    }
+
+    /**
+     * 在后台线程与当前列表比较, 完成后在主线程替换列表并只通知变化的部分, 之前还没有完成的提交被丢弃.
+     * 之后直接修改列表(setList, add, remove等)会丢弃还没有完成的提交.
+     *
+     * @param list 新列表, 不会被复制, 提交之后不能再修改.
+     * @see #getItemComparator()
+     */
+    public void submitList(List<T> list) {
+        // 当前列表在后台比较期间不能被修改
+        mListShared = true;
+        getDiffer().submitList(list);
+    }
+
+    /**
+     * @param executor {@link #submitList(List)}比较列表使用的线程池.
+     */
+    public void setDiffExecutor(Executor executor) {
+        getDiffer().setExecutor(executor);
+    }
+
+    /**
+     * @return {@link #submitList(List)}比较列表项的方式, 默认为{@link ItemComparator#DEFAULT}.
+     */
+    protected ItemComparator<? super T> getItemComparator() {
+        return ItemComparator.DEFAULT;
+    }
+
+    private void cancelDiff() {
+        if (mDiffer != null) {
+            mDiffer.cancel();
+        }
+    }
+
+    private AsyncListDiffer<T> getDiffer() {
+        if (mDiffer == null) {
+            mDiffer = new AsyncListDiffer<>(getItemComparator(), new AsyncListDiffer.Callback<T>() {
+                @Override
+                public List<T> getCurrentList() {
+                    return mList;
+                }
+
+                @Override
+                public void onListDiffed(List<T> newList, ListDiffer.DiffResult result) {
+                    // 替换引用, 新列表属于提交者, 之后的修改会先复制
+                    mList = newList;
+                    mListShared = true;
+                    result.dispatchUpdatesTo(new ListDiffer.ListUpdateCallback() {
+                        @Override
+                        public void onInserted(int position, int count) {
+                            notifyItemRangeInserted(position, count);
+                        }
+
+                        @Override
+                        public void onRemoved(int position, int count) {
+                            notifyItemRangeRemoved(position, count);
+                        }
+
+                        @Override
+                        public void onChanged(int position, int count) {
+                            notifyItemRangeChanged(position, count);
+                        }
+                    });
+                }
+            });
+        }
+        return mDiffer;
+    }
+
+    /**
+     * 丢弃还没有完成的提交, 并返回可以直接修改的当前列表. 当前列表可能仍在后台被读取, 或者属于提交者, 此时先复制.
+     */
+    private List<T> editList() {
+        cancelDiff();
+        if (mListShared) {
+            mList = new ArrayList<>(mList);
+            mListShared = false;
+        }
+        return mList;
+    }
+
+    public void add(int position, T item) {
+        editList().add(position, item);
+        notifyItemInserted(position);
+    }
+
+    public void add(T item) {
+        add(mList.size(), item);
+    }
+
+    public void addAll(int position, Collection<? extends T> items) {
+        editList().addAll(position, items);
+        notifyItemRangeInserted(position, items.size());
+    }
+
+    public void addAll(Collection<? extends T> items) {
+        addAll(mList.size(), items);
+    }
+
+    public T set(int position, T item) {
+        T old = editList().set(position, item);
+        notifyItemChanged(position);
+        return old;
+    }
+
+    public T remove(int position) {
+        T old = editList().remove(position);
+        notifyItemRemoved(position);
+        return old;
+    }
+
+    public void removeRange(int position, int count) {
+        editList().subList(position, position + count).clear();
+        notifyItemRangeRemoved(position, count);
+    }
+
+    public void move(int fromPosition, int toPosition) {
+        List<T> list = editList();
+        list.add(toPosition, list.remove(fromPosition));
+        notifyItemMoved(fromPosition, toPosition);
+    }
+
+    @Override
+    public int getItemCount() {
+        return mList.size();
+    }
+
+    @Override
+    public int getItemViewType(int position) {
+        return getCardType(getItem(position));
+    }
+
+    @Override
+    public long getItemId(int position) {
+        return getItemId(getItem(position));
+    }
+
+    @Override
+    public CardViewHolder onCreateViewHolder(ViewGroup parent, int viewType) {
+        CardPresenter presenter = onCreatePresenter(parent, viewType);
+        ViewTagger.setCardPresenterTag(presenter.view(), presenter);
+        return new CardViewHolder(presenter);
+    }
+
+    @Override
+    public void onBindViewHolder(CardViewHolder holder, int position) {
+        BindTracer tracer = Tracing.getTracer();
+        if (tracer != null) {
+            tracer.beginSection(BindTracer.SECTION_GET_VIEW, this, 0);
+        }
+        onBindPresenter(position, holder.presenter);
+        if (tracer != null) {
+            tracer.endSection(BindTracer.SECTION_GET_VIEW);
+        }
+    }
+
+    @Override
+    public void onBindViewHolder(CardViewHolder holder, int position, List<Object> payloads) {
+        if (payloads == null || payloads.isEmpty()) {
+            onBindViewHolder(holder, position);
+        } else {
+            holder.presenter.bind(getItem(position), payloads);
+        }
+    }
+
+    @Override
+    public void onViewRecycled(CardViewHolder holder) {
+        holder.presenter.unbind();
+    }
+
+    /**
+     * @return 卡片类型, 同一类型的卡片使用相同的layout和Presenter组合. 默认使用卡片类型表, 没有时只有一种.
+     */
+    protected int getCardType(T item) {
+        return mRegistry == null ? 0 : mRegistry.getCardType(item);
+    }
+
+    /**
+     * @return 稳定id, 默认使用{@link StableIdModel#getStableId()}, 否则为{@link RecyclerView#NO_ID}.
+     */
+    protected long getItemId(T item) {
+        return item instanceof StableIdModel ? ((StableIdModel) item).getStableId() : RecyclerView.NO_ID;
+    }
+
+    /**
+     * 创建CardPresenter, 默认使用卡片类型表中的CardSpec.
+     *
+     * @param parent   容器.
+     * @param cardType 卡片类型, 参见{@link #getCardType(Object)}.
+     * @return the card presenter.
+     */
+    protected CardPresenter onCreatePresenter(ViewGroup parent, int cardType) {
+        if (mRegistry == null) {
+            throw new IllegalStateException("No CardTypeRegistry, onCreatePresenter() must be overridden");
+        }
+        return mRegistry.create(cardType, parent);
+    }
+
+    /**
+     * 使用CardPresenter绑定一张Card.
+     *
+     * @param position  当前Item的position.
+     * @param presenter 使用的CardPresenter.
+     */
+    protected void onBindPresenter(int position, CardPresenter presenter) {
+        presenter.bind(getItem(position));
+    }
+}
@@ -0,0 +1,162 @@
+package code.jesse.palette.adapter;
+
+import android.view.ViewGroup;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import code.jesse.palette.CardPresenter;
+import code.jesse.palette.CardSpec;
+import code.jesse.palette.model.TypedModel;
+
+/**
+ * 卡片类型表: 把Model类或者类型key映射到一种卡片({@link CardSpec}), 每种卡片对应Adapter的一个view type.
+ * <p/>
+ * Model实现{@link TypedModel}时使用它的类型key, 否则使用Model的类(也匹配子类). 同一类型的卡片layout相同,
+ * ListView/RecyclerView会按类型分别回收, convertView总是与卡片的layout一致.
+ * <p/>
+ * 使用{@link PagedList}时, 还没有加载的位置为null, 使用{@link #registerPlaceholder(CardSpec)}注册的占位卡片.
+ * <p/>
+ * 类型表必须在设置Adapter之前注册完成, 之后view type的数目不能变化. 只应在主线程访问.
+ * <p/>
+ * Example:
+ * CardTypeRegistry registry = new CardTypeRegistry()
+ * .register(AppModel.class, APP_SPEC)
+ * .register("banner", BANNER_SPEC);
+ * listView.setAdapter(new CardAdapter<Object>(registry) {});
+ *
+ * @author zhulantian@gmail.com
+ */
+public final class CardTypeRegistry {
+
+    /**
+     * 占位卡片的类型key.
+     */
+    private static final Object PLACEHOLDER_KEY = new Object();
+
+    private final List<CardSpec> mSpecs = new ArrayList<>();
+    private final Map<Object, Integer> mTypes = new HashMap<>();
+    /**
+     * 按父类查找到的Model类的类型, 与注册的类型分开保存, 注册新的类型时清空.
+     */
+    private final Map<Class<?>, Integer> mResolvedTypes = new HashMap<>();
+    private int[] mCreatedCounts = new int[0];
+
+    /**
+     * 注册Model类对应的卡片.
+     *
+     * @param modelClass Model类, 也匹配子类.
+     * @param spec       卡片.
+     * @return self.
+     */
+    public CardTypeRegistry register(Class<?> modelClass, CardSpec spec) {
+        return registerKey(modelClass, spec);
+    }
+
+    /**
+     * 注册类型key对应的卡片, 参见{@link TypedModel}.
+     *
+     * @return self.
+     */
+    public CardTypeRegistry register(Object typeKey, CardSpec spec) {
+        return registerKey(typeKey, spec);
+    }
+
+    /**
+     * 注册Model为null(数据还没有加载)时使用的占位卡片, 绑定时Model为null.
+     *
+     * @return self.
+     */
+    public CardTypeRegistry registerPlaceholder(CardSpec spec) {
+        return registerKey(PLACEHOLDER_KEY, spec);
+    }
+
+    private CardTypeRegistry registerKey(Object key, CardSpec spec) {
+        if (key == null || spec == null) {
+            throw new IllegalArgumentException("key and spec can not be null");
+        }
+        if (mTypes.containsKey(key)) {
+            throw new IllegalArgumentException("Already registered: " + key);
+        }
+        int type = mSpecs.indexOf(spec);
+        if (type < 0) {
+            type = mSpecs.size();
+            mSpecs.add(spec);
+            int[] counts = new int[mSpecs.size()];
+            System.arraycopy(mCreatedCounts, 0, counts, 0, mCreatedCounts.length);
+            mCreatedCounts = counts;
+        }
+        mTypes.put(key, type);
+        mResolvedTypes.clear();
+        return this;
+    }
+
+    /**
+     * @return 卡片类型的数目.
+     */
+    public int getTypeCount() {
+        return mSpecs.size();
+    }
+
+    /**
+     * @return Model的卡片类型, 从0开始.
+     * @throws IllegalArgumentException Model没有注册的卡片.
+     */
+    public int getCardType(Object model) {
+        if (model == null) {
+            Integer type = mTypes.get(PLACEHOLDER_KEY);
+            if (type == null) {
+                throw new IllegalArgumentException("No placeholder card registered");
+            }
+            return type;
+        }
+        Object key = model instanceof TypedModel ? ((TypedModel) model).getTypeKey() : model.getClass();
+        Integer type = mTypes.get(key);
+        if (type == null && key instanceof Class) {
+            type = resolveType((Class<?>) key);
+        }
+        if (type == null) {
+            throw new IllegalArgumentException("No card type registered for " + key);
+        }
+        return type;
+    }
+
+    /**
+     * 按父类查找, 结果缓存到子类上.
+     */
+    private Integer resolveType(Class<?> modelClass) {
+        Integer type = mResolvedTypes.get(modelClass);
+        if (type == null) {
+            for (Class<?> c = modelClass.getSuperclass(); c != null && type == null;
+                 c = c.getSuperclass()) {
+                type = mTypes.get(c);
+            }
+            if (type != null) {
+                mResolvedTypes.put(modelClass, type);
+            }
+        }
+        return type;
+    }
+
+    public CardSpec getSpec(int cardType) {
+        return mSpecs.get(cardType);
+    }
+
+    /**
+     * 用类型对应的CardSpec创建卡片, 并计入创建数目.
+     */
+    public CardPresenter create(int cardType, ViewGroup parent) {
+        CardPresenter presenter = mSpecs.get(cardType).create(parent);
+        mCreatedCounts[cardType]++;
+        return presenter;
+    }
+
+    /**
+     * @return 这种卡片已经创建的数目, 可以用来设置每种卡片的回收池大小.
+     */
+    public int getCreatedCount(int cardType) {
+        return mCreatedCounts[cardType];
+    }
+}
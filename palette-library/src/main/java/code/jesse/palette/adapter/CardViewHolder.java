@@ -0,0 +1,20 @@
+package code.jesse.palette.adapter;
+
+import android.support.v7.widget.RecyclerView;
+
+import code.jesse.palette.CardPresenter;
+
+/**
+ * 持有CardPresenter的ViewHolder, 绑定时不需要再从View的Tag中查找.
+ *
+ * @author zhulantian@gmail.com
+ */
+public class CardViewHolder extends RecyclerView.ViewHolder {
+
+    public final CardPresenter presenter;
+
+    public CardViewHolder(CardPresenter presenter) {
+        super(presenter.view());
+        this.presenter = presenter;
+    }
+}
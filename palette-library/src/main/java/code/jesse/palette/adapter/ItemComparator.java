@@ -0,0 +1,40 @@
+package code.jesse.palette.adapter;
+
+import code.jesse.palette.model.StableIdModel;
+
+/**
+ * 列表比较时判断两项是否为同一个数据, 以及内容是否相同, 参见{@link ListDiffer}.
+ * <p/>
+ * 方法会在后台线程调用.
+ *
+ * @author zhulantian@gmail.com
+ */
+public abstract class ItemComparator<T> {
+
+    /**
+     * 默认: {@link StableIdModel}比较稳定id, 否则比较equals; 内容比较equals.
+     */
+    public static final ItemComparator<Object> DEFAULT = new ItemComparator<Object>() {
+        @Override
+        public boolean areItemsTheSame(Object oldItem, Object newItem) {
+            if (oldItem instanceof StableIdModel && newItem instanceof StableIdModel) {
+                return ((StableIdModel) oldItem).getStableId() == ((StableIdModel) newItem).getStableId();
+            }
+            return oldItem == null ? newItem == null : oldItem.equals(newItem);
+        }
+    };
+
+    /**
+     * @return 是否为同一个数据, 是时会对比内容, 否则作为删除和插入.
+     */
+    public abstract boolean areItemsTheSame(T oldItem, T newItem);
+
+    /**
+     * 在{@link #areItemsTheSame(Object, Object)}为true时调用.
+     *
+     * @return 内容是否相同, 不同时卡片需要重新绑定.
+     */
+    public boolean areContentsTheSame(T oldItem, T newItem) {
+        return oldItem == null ? newItem == null : oldItem.equals(newItem);
+    }
+}
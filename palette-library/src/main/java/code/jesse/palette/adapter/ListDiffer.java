@@ -0,0 +1,304 @@
+package code.jesse.palette.adapter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 计算两个列表之间的最小编辑(删除, 插入, 修改), 使用Myers差分算法的线性空间版本.
+ * <p/>
+ * 时间O((N+M)D), 空间O(N+M), D为编辑次数. 只计算删除和插入, 移动表示为一次删除加一次插入.
+ * 计算不依赖主线程, 可以在后台执行, 参见{@link AsyncListDiffer}.
+ *
+ * @author zhulantian@gmail.com
+ */
+public final class ListDiffer {
+
+    private ListDiffer() {
+        // utility
+    }
+
+    /**
+     * 接收列表变化的回调, 位置都是按顺序应用之前的变化之后的位置.
+     */
+    public interface ListUpdateCallback {
+        void onInserted(int position, int count);
+
+        void onRemoved(int position, int count);
+
+        void onChanged(int position, int count);
+    }
+
+    public static <T> DiffResult diff(List<? extends T> oldList, List<? extends T> newList,
+                                      ItemComparator<? super T> comparator) {
+        Differ<T> differ = new Differ<>(oldList, newList, comparator);
+        return differ.run();
+    }
+
+    /**
+     * 比较结果, 可以在主线程分发给Adapter.
+     */
+    public static final class DiffResult {
+
+        private static final int OP_MATCH = 0;
+        private static final int OP_CHANGE = 1;
+        private static final int OP_REMOVE = 2;
+        private static final int OP_INSERT = 3;
+
+        /**
+         * 从前向后的编辑序列, 每一项对应旧列表或新列表中的一个元素.
+         */
+        private final byte[] mOps;
+        private final int mOpCount;
+        private final int[] mOldToNew;
+        private final boolean mHasChanges;
+
+        DiffResult(byte[] ops, int opCount, int[] oldToNew) {
+            mOps = ops;
+            mOpCount = opCount;
+            mOldToNew = oldToNew;
+            boolean hasChanges = false;
+            for (int i = 0; i < opCount && !hasChanges; ++i) {
+                hasChanges = ops[i] != OP_MATCH;
+            }
+            mHasChanges = hasChanges;
+        }
+
+        /**
+         * @return 是否有任何删除, 插入或者内容变化.
+         */
+        public boolean hasChanges() {
+            return mHasChanges;
+        }
+
+        /**
+         * @return 旧列表中的位置在新列表中的位置, 被删除时返回-1.
+         */
+        public int convertOldPositionToNew(int oldPosition) {
+            return mOldToNew[oldPosition];
+        }
+
+        /**
+         * 从后向前分发变化, 使每次回调的位置都不受之前回调的影响. 相邻的同类变化合并为一次回调.
+         */
+        public void dispatchUpdatesTo(ListUpdateCallback callback) {
+            int oldPosition = mOldToNew.length;
+            int pendingOp = OP_MATCH;
+            int pendingPosition = 0;
+            int pendingCount = 0;
+            for (int i = mOpCount - 1; i >= 0; --i) {
+                int op = mOps[i];
+                int position;
+                if (op == OP_INSERT) {
+                    position = oldPosition;
+                } else {
+                    position = --oldPosition;
+                }
+                if (op == pendingOp && op != OP_MATCH
+                        && (op == OP_INSERT ? position == pendingPosition : position == pendingPosition - 1)) {
+                    pendingCount++;
+                    if (op != OP_INSERT) {
+                        pendingPosition = position;
+                    }
+                    continue;
+                }
+                dispatch(callback, pendingOp, pendingPosition, pendingCount);
+                pendingOp = op;
+                pendingPosition = position;
+                pendingCount = 1;
+            }
+            dispatch(callback, pendingOp, pendingPosition, pendingCount);
+        }
+
+        private static void dispatch(ListUpdateCallback callback, int op, int position, int count) {
+            if (count == 0) {
+                return;
+            }
+            switch (op) {
+                case OP_CHANGE:
+                    callback.onChanged(position, count);
+                    break;
+                case OP_REMOVE:
+                    callback.onRemoved(position, count);
+                    break;
+                case OP_INSERT:
+                    callback.onInserted(position, count);
+                    break;
+                default:
+                    break;
+            }
+        }
+    }
+
+    private static final class Differ<T> {
+
+        private final List<? extends T> mOld;
+        private final List<? extends T> mNew;
+        private final ItemComparator<? super T> mComparator;
+
+        // 前向和后向搜索的最远位置, 按对角线k下标, 偏移mOffset
+        private final int[] mForward;
+        private final int[] mBackward;
+        private final int mOffset;
+
+        // 路径上的点, 按顺序
+        private final List<int[]> mPoints = new ArrayList<>();
+
+        Differ(List<? extends T> oldList, List<? extends T> newList, ItemComparator<? super T> comparator) {
+            mOld = oldList;
+            mNew = newList;
+            mComparator = comparator;
+            int max = (oldList.size() + newList.size() + 1) / 2 + 1;
+            mOffset = max;
+            mForward = new int[2 * max + 2];
+            mBackward = new int[2 * max + 2];
+        }
+
+        private boolean same(int x, int y) {
+            return mComparator.areItemsTheSame(mOld.get(x), mNew.get(y));
+        }
+
+        DiffResult run() {
+            int n = mOld.size();
+            int m = mNew.size();
+            mPoints.add(new int[]{0, 0});
+            findPath(0, 0, n, m);
+            mPoints.add(new int[]{n, m});
+            return walk(n, m);
+        }
+
+        /**
+         * 把(left, top)到(right, bottom)的路径上的中间点按顺序加入mPoints, 不包括两个端点.
+         */
+        private void findPath(int left, int top, int right, int bottom) {
+            // 去掉公共的前缀和后缀, 它们一定在路径上
+            while (left < right && top < bottom && same(left, top)) {
+                left++;
+                top++;
+            }
+            while (left < right && top < bottom && same(right - 1, bottom - 1)) {
+                right--;
+                bottom--;
+            }
+            if (left == right || top == bottom) {
+                mPoints.add(new int[]{left, top});
+                mPoints.add(new int[]{right, bottom});
+                return;
+            }
+            int[] snake = middleSnake(left, top, right, bottom);
+            findPath(left, top, snake[0], snake[1]);
+            findPath(snake[2], snake[3], right, bottom);
+        }
+
+        /**
+         * @return 中间蛇的起点和终点{x1, y1, x2, y2}, 最短路径一定经过它.
+         */
+        private int[] middleSnake(int left, int top, int right, int bottom) {
+            int width = right - left;
+            int height = bottom - top;
+            int delta = width - height;
+            int max = (width + height + 1) / 2;
+            int[] vf = mForward;
+            int[] vb = mBackward;
+            int o = mOffset;
+            vf[o + 1] = left;
+            vb[o + 1] = bottom;
+            boolean odd = (delta & 1) != 0;
+            for (int d = 0; d <= max; ++d) {
+                for (int k = d; k >= -d; k -= 2) {
+                    int c = k - delta;
+                    int x;
+                    int px;
+                    if (k == -d || (k != d && vf[o + k - 1] < vf[o + k + 1])) {
+                        px = x = vf[o + k + 1];
+                    } else {
+                        px = vf[o + k - 1];
+                        x = px + 1;
+                    }
+                    int y = top + (x - left) - k;
+                    int py = (d == 0 || x != px) ? y : y - 1;
+                    while (x < right && y < bottom && same(x, y)) {
+                        x++;
+                        y++;
+                    }
+                    vf[o + k] = x;
+                    if (odd && c >= -(d - 1) && c <= d - 1 && y >= vb[o + c]) {
+                        return new int[]{px, py, x, y};
+                    }
+                }
+                for (int c = d; c >= -d; c -= 2) {
+                    int k = c + delta;
+                    int y;
+                    int py;
+                    if (c == -d || (c != d && vb[o + c - 1] > vb[o + c + 1])) {
+                        py = y = vb[o + c + 1];
+                    } else {
+                        py = vb[o + c - 1];
+                        y = py - 1;
+                    }
+                    int x = left + (y - top) + k;
+                    int px = (d == 0 || y != py) ? x : x + 1;
+                    while (x > left && y > top && same(x - 1, y - 1)) {
+                        x--;
+                        y--;
+                    }
+                    vb[o + c] = y;
+                    if (!odd && k >= -d && k <= d && x <= vf[o + k]) {
+                        return new int[]{x, y, px, py};
+                    }
+                }
+            }
+            throw new IllegalStateException("No middle snake found");
+        }
+
+        /**
+         * 沿路径上的点生成编辑序列.
+         */
+        private DiffResult walk(int n, int m) {
+            byte[] ops = new byte[n + m];
+            int count = 0;
+            int[] oldToNew = new int[n];
+            int x = 0;
+            int y = 0;
+            for (int[] point : mPoints) {
+                int tx = point[0];
+                int ty = point[1];
+                // 每两个相邻的点之间: 对角线, 最多一次删除或插入, 再对角线
+                while (x < tx && y < ty && same(x, y)) {
+                    ops[count++] = match(x, y, oldToNew);
+                    x++;
+                    y++;
+                }
+                if (tx - x > ty - y) {
+                    oldToNew[x] = -1;
+                    ops[count++] = DiffResult.OP_REMOVE;
+                    x++;
+                } else if (tx - x < ty - y) {
+                    ops[count++] = DiffResult.OP_INSERT;
+                    y++;
+                }
+                while (x < tx && y < ty) {
+                    ops[count++] = match(x, y, oldToNew);
+                    x++;
+                    y++;
+                }
+                // 前缀/后缀边界上可能有连续的删除或插入
+                while (x < tx) {
+                    oldToNew[x] = -1;
+                    ops[count++] = DiffResult.OP_REMOVE;
+                    x++;
+                }
+                while (y < ty) {
+                    ops[count++] = DiffResult.OP_INSERT;
+                    y++;
+                }
+            }
+            return new DiffResult(ops, count, oldToNew);
+        }
+
+        private byte match(int x, int y, int[] oldToNew) {
+            oldToNew[x] = y;
+            return mComparator.areContentsTheSame(mOld.get(x), mNew.get(y))
+                    ? (byte) DiffResult.OP_MATCH : (byte) DiffResult.OP_CHANGE;
+        }
+    }
+}
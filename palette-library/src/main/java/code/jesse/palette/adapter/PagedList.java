@@ -0,0 +1,431 @@
+package code.jesse.palette.adapter;
+
+import android.os.Handler;
+import android.os.Looper;
+import android.util.Log;
+
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 分页加载的列表, 只在内存中保留访问位置附近的若干页, 供无限滚动的Feed使用.
+ * <p/>
+ * 数据按固定大小分页, 由{@link PageLoader}在后台线程加载. {@link #get(int)}访问一个位置时, 加载前后
+ * prefetchDistance范围内还没有加载的页; 接近末尾时加载下一页. 还没有加载的位置返回null(占位).
+ * 驻留的页超过maxResidentPages时, 丢弃离最近访问位置最远的页, 再次访问时重新加载. 最后一页不会被丢弃.
+ * <p/>
+ * 加载失败的页不会自动重试, 直到调用{@link #retry()}, 避免每次访问都重新加载.
+ * <p/>
+ * 没有PageLoader时, 通过{@link #append(List)}把推送来的数据追加到末尾, 不复制已有的数据, 也不会丢弃任何页.
+ * <p/>
+ * 只应在主线程访问. 注意通过迭代器或者get()遍历会触发加载, 不需要加载时使用{@link #peek(int)}.
+ * <p/>
+ * Example:
+ * PagedList<FeedModel> list = PagedList.builder(new FeedLoader())
+ * .pageSize(20)
+ * .prefetchDistance(10)
+ * .maxResidentPages(10)
+ * .build();
+ * adapter.setPagedList(list);
+ *
+ * @author zhulantian@gmail.com
+ */
+public final class PagedList<T> extends AbstractList<T> {
+
+    private static final String LOG_TAG = "PagedList";
+
+    private static ExecutorService sDefaultExecutor;
+
+    /**
+     * 按页加载数据, 在后台线程调用.
+     */
+    public interface PageLoader<T> {
+
+        /**
+         * @param page     页号, 从0开始. 同一页重新加载时应返回相同位置的数据.
+         * @param pageSize 每页的数目.
+         * @return 这一页的数据, 少于pageSize(或者为null)表示已经到达末尾.
+         */
+        List<T> loadPage(int page, int pageSize);
+    }
+
+    private final PageLoader<T> mLoader;
+    private final Executor mExecutor;
+    private final Executor mNotifyExecutor;
+    private final int mPageSize;
+    private final int mPrefetchDistance;
+    private final int mMaxResidentPages;
+
+    /**
+     * 每一页的数据, 长度都是pageSize, 被丢弃的页为null.
+     */
+    private final List<Object[]> mPages = new ArrayList<>();
+    private final BitSet mLoading = new BitSet();
+    private final BitSet mFailed = new BitSet();
+    private ListDiffer.ListUpdateCallback mCallback;
+    private int mSize;
+    private int mResidentPages;
+    private int mDroppedPages;
+    private int mLastAccessedPage;
+    private boolean mEndReached;
+
+    private PagedList(Builder<T> builder) {
+        mLoader = builder.mLoader;
+        mExecutor = builder.mExecutor != null ? builder.mExecutor : getDefaultExecutor();
+        mNotifyExecutor = builder.mNotifyExecutor != null
+                ? builder.mNotifyExecutor : new MainThreadExecutor();
+        mPageSize = builder.mPageSize;
+        mPrefetchDistance = builder.mPrefetchDistance;
+        mMaxResidentPages = builder.mMaxResidentPages;
+        mEndReached = mLoader == null;
+        // 开始加载第一页
+        loadPage(0);
+    }
+
+    /**
+     * @param loader 加载数据的PageLoader, 为null时只能通过{@link #append(List)}添加数据.
+     */
+    public static <T> Builder<T> builder(PageLoader<T> loader) {
+        return new Builder<>(loader);
+    }
+
+    /**
+     * 设置数据变化的回调: 加载或者追加到末尾时调用onInserted, 重新加载被丢弃的页时调用onChanged.
+     */
+    public void setCallback(ListDiffer.ListUpdateCallback callback) {
+        mCallback = callback;
+    }
+
+    @Override
+    public int size() {
+        return mSize;
+    }
+
+    /**
+     * 返回position上的数据, 并加载附近的页.
+     *
+     * @return 数据, 还没有加载时为null.
+     */
+    @Override
+    public T get(int position) {
+        T item = peek(position);
+        loadAround(position);
+        return item;
+    }
+
+    /**
+     * 返回position上的数据, 不触发加载.
+     *
+     * @return 数据, 还没有加载时为null.
+     */
+    @SuppressWarnings("unchecked")
+    public T peek(int position) {
+        if (position < 0 || position >= mSize) {
+            throw new IndexOutOfBoundsException("Index: " + position + ", Size: " + mSize);
+        }
+        Object[] page = mPages.get(position / mPageSize);
+        return page == null ? null : (T) page[position % mPageSize];
+    }
+
+    /**
+     * @return position上的数据是否已经加载.
+     */
+    public boolean isLoaded(int position) {
+        return position >= 0 && position < mSize && mPages.get(position / mPageSize) != null;
+    }
+
+    /**
+     * 加载position前后prefetchDistance范围内的页, 接近末尾时加载下一页.
+     */
+    public void loadAround(int position) {
+        position = Math.max(0, Math.min(position, mSize));
+        mLastAccessedPage = position / mPageSize;
+        if (mSize > 0) {
+            int first = Math.max(0, position - mPrefetchDistance) / mPageSize;
+            int last = Math.min(mSize - 1, position + mPrefetchDistance) / mPageSize;
+            for (int page = first; page <= last; ++page) {
+                if (mPages.get(page) == null) {
+                    loadPage(page);
+                }
+            }
+        }
+        if (!mEndReached && position + mPrefetchDistance >= mSize) {
+            // 最后一页不满时重新加载它来补齐, 否则加载新的一页
+            loadPage(mSize / mPageSize);
+        }
+    }
+
+    /**
+     * 追加数据到末尾, 不复制已有的数据.
+     *
+     * @throws IllegalStateException 列表使用PageLoader加载, 追加的数据会与加载的页冲突.
+     */
+    public void append(List<? extends T> items) {
+        if (mLoader != null) {
+            throw new IllegalStateException("append() is not supported with a PageLoader");
+        }
+        if (items == null || items.isEmpty()) {
+            return;
+        }
+        int oldSize = mSize;
+        for (int i = 0; i < items.size(); ++i) {
+            int page = mSize / mPageSize;
+            if (page == mPages.size()) {
+                mPages.add(new Object[mPageSize]);
+                mResidentPages++;
+            }
+            mPages.get(page)[mSize % mPageSize] = items.get(i);
+            mSize++;
+        }
+        if (mCallback != null) {
+            mCallback.onInserted(oldSize, mSize - oldSize);
+        }
+        trimPages();
+    }
+
+    public int getPageSize() {
+        return mPageSize;
+    }
+
+    /**
+     * @return 内存中的页数.
+     */
+    public int getResidentPageCount() {
+        return mResidentPages;
+    }
+
+    /**
+     * @return 被丢弃过的页数, 可以用来调整maxResidentPages.
+     */
+    public int getDroppedPageCount() {
+        return mDroppedPages;
+    }
+
+    /**
+     * @return 是否有加载失败的页, 参见{@link #retry()}.
+     */
+    public boolean hasFailedPages() {
+        return !mFailed.isEmpty();
+    }
+
+    /**
+     * 重新加载所有加载失败的页.
+     */
+    public void retry() {
+        for (int page = mFailed.nextSetBit(0); page >= 0; page = mFailed.nextSetBit(page + 1)) {
+            mFailed.clear(page);
+            loadPage(page);
+        }
+    }
+
+    /**
+     * @return PageLoader是否已经没有更多的数据.
+     */
+    public boolean isEndReached() {
+        return mEndReached;
+    }
+
+    private void loadPage(final int page) {
+        if (mLoader == null || mLoading.get(page) || mFailed.get(page)) {
+            return;
+        }
+        mLoading.set(page);
+        mExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                List<T> items;
+                try {
+                    items = mLoader.loadPage(page, mPageSize);
+                } catch (RuntimeException e) {
+                    Log.w(LOG_TAG, "Failed to load page " + page, e);
+                    // 直到retry()之前不再加载
+                    mNotifyExecutor.execute(new Runnable() {
+                        @Override
+                        public void run() {
+                            mLoading.clear(page);
+                            mFailed.set(page);
+                        }
+                    });
+                    return;
+                }
+                final List<T> result = items;
+                mNotifyExecutor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        onPageLoaded(page, result);
+                    }
+                });
+            }
+        });
+    }
+
+    private void onPageLoaded(int page, List<T> items) {
+        mLoading.clear(page);
+        int count = items == null ? 0 : Math.min(items.size(), mPageSize);
+        boolean isLast = page >= mPages.size() - 1;
+        if (page > mPages.size() || (count == 0 && page == mPages.size())) {
+            // 没有新的数据
+            mEndReached = mEndReached || isLast;
+            return;
+        }
+        Object[] data = page < mPages.size() ? mPages.get(page) : null;
+        if (data == null) {
+            data = new Object[mPageSize];
+            if (page == mPages.size()) {
+                mPages.add(data);
+            } else {
+                mPages.set(page, data);
+            }
+            mResidentPages++;
+        }
+        for (int i = 0; i < count; ++i) {
+            data[i] = items.get(i);
+        }
+        int start = page * mPageSize;
+        int oldSize = mSize;
+        if (isLast) {
+            mSize = Math.max(mSize, start + count);
+            mEndReached = count < mPageSize;
+        }
+        if (mCallback != null) {
+            int changed = Math.min(oldSize, start + count) - start;
+            if (changed > 0) {
+                mCallback.onChanged(start, changed);
+            }
+            if (mSize > oldSize) {
+                mCallback.onInserted(oldSize, mSize - oldSize);
+            }
+        }
+        trimPages();
+    }
+
+    /**
+     * 丢弃离最近访问的页最远的页, 直到驻留的页数不超过maxResidentPages.
+     */
+    private void trimPages() {
+        if (mLoader == null) {
+            // 无法重新加载
+            return;
+        }
+        int lastPage = mPages.size() - 1;
+        while (mResidentPages > mMaxResidentPages) {
+            int farthest = -1;
+            int farthestDistance = 0;
+            for (int page = 0; page < lastPage; ++page) {
+                int distance = Math.abs(page - mLastAccessedPage);
+                if (mPages.get(page) != null && distance > farthestDistance) {
+                    farthest = page;
+                    farthestDistance = distance;
+                }
+            }
+            if (farthest < 0) {
+                return;
+            }
+            mPages.set(farthest, null);
+            mResidentPages--;
+            mDroppedPages++;
+        }
+    }
+
+    /**
+     * @return 所有PagedList共享的单个加载线程. 加载一般是网络或者磁盘I/O, 不与{@link AsyncListDiffer}比较列表的线程共用,
+     * 否则一次慢的加载会推迟所有列表的比较.
+     */
+    private static Executor getDefaultExecutor() {
+        synchronized (PagedList.class) {
+            if (sDefaultExecutor == null) {
+                sDefaultExecutor = Executors.newSingleThreadExecutor(new ThreadFactory() {
+                    @Override
+                    public Thread newThread(Runnable r) {
+                        Thread thread = new Thread(r, "palette-paging");
+                        thread.setDaemon(true);
+                        return thread;
+                    }
+                });
+            }
+            return sDefaultExecutor;
+        }
+    }
+
+    /**
+     * 在主线程执行.
+     */
+    private static final class MainThreadExecutor implements Executor {
+        private final Handler mHandler = new Handler(Looper.getMainLooper());
+
+        @Override
+        public void execute(Runnable command) {
+            mHandler.post(command);
+        }
+    }
+
+    public static final class Builder<T> {
+
+        private final PageLoader<T> mLoader;
+        private Executor mExecutor;
+        private Executor mNotifyExecutor;
+        private int mPageSize = 20;
+        private int mPrefetchDistance = 20;
+        private int mMaxResidentPages = 10;
+
+        private Builder(PageLoader<T> loader) {
+            mLoader = loader;
+        }
+
+        /**
+         * 每页的数目, 默认20.
+         */
+        public Builder<T> pageSize(int pageSize) {
+            if (pageSize <= 0) {
+                throw new IllegalArgumentException("pageSize must be positive");
+            }
+            mPageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * 访问位置前后预先加载的数目, 默认20.
+         */
+        public Builder<T> prefetchDistance(int prefetchDistance) {
+            mPrefetchDistance = Math.max(0, prefetchDistance);
+            return this;
+        }
+
+        /**
+         * 内存中最多保留的页数, 默认10. 至少要能容纳屏幕上和预先加载的数据, 否则会反复加载.
+         */
+        public Builder<T> maxResidentPages(int maxResidentPages) {
+            if (maxResidentPages < 2) {
+                throw new IllegalArgumentException("maxResidentPages must be at least 2");
+            }
+            mMaxResidentPages = maxResidentPages;
+            return this;
+        }
+
+        /**
+         * 加载数据使用的线程池, 默认为所有PagedList共享的单个加载线程.
+         */
+        public Builder<T> executor(Executor executor) {
+            mExecutor = executor;
+            return this;
+        }
+
+        /**
+         * 把加载结果交给列表的线程, 默认为主线程. 必须是访问列表的线程, 一般只在测试时修改.
+         */
+        public Builder<T> notifyExecutor(Executor executor) {
+            mNotifyExecutor = executor;
+            return this;
+        }
+
+        public PagedList<T> build() {
+            return new PagedList<>(this);
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package code.jesse.palette.adapter;
+
+import android.view.View;
+import android.widget.AbsListView;
+
+import code.jesse.palette.CardPresenter;
+import code.jesse.palette.tools.ViewTagger;
+
+/**
+ * 跟踪列表的滑动状态, 供{@link CardAdapter}在快速滑动时使用轻量绑定.
+ * <p/>
+ * 快速滑动结束时, 对当前可见的、只做了轻量绑定的卡片完成绑定. 列表只能有一个OnScrollListener,
+ * 原来的监听可以通过{@link #setOnScrollListener(AbsListView.OnScrollListener)}继续接收回调.
+ * <p/>
+ * Example:
+ * adapter.setScrollStateTracker(ScrollStateTracker.attach(listView));
+ *
+ * @author zhulantian@gmail.com
+ */
+public class ScrollStateTracker implements AbsListView.OnScrollListener {
+
+    private AbsListView.OnScrollListener mDelegate;
+    private int mScrollState = SCROLL_STATE_IDLE;
+
+    /**
+     * 创建ScrollStateTracker并设置为列表的OnScrollListener.
+     */
+    public static ScrollStateTracker attach(AbsListView listView) {
+        ScrollStateTracker tracker = new ScrollStateTracker();
+        listView.setOnScrollListener(tracker);
+        return tracker;
+    }
+
+    /**
+     * @param delegate 继续接收列表滑动回调的监听.
+     */
+    public void setOnScrollListener(AbsListView.OnScrollListener delegate) {
+        mDelegate = delegate;
+    }
+
+    public int getScrollState() {
+        return mScrollState;
+    }
+
+    public boolean isFlinging() {
+        return mScrollState == SCROLL_STATE_FLING;
+    }
+
+    @Override
+    public void onScrollStateChanged(AbsListView view, int scrollState) {
+        int oldState = mScrollState;
+        mScrollState = scrollState;
+        if (oldState == SCROLL_STATE_FLING && scrollState != SCROLL_STATE_FLING) {
+            completeVisibleCards(view);
+        }
+        if (mDelegate != null) {
+            mDelegate.onScrollStateChanged(view, scrollState);
+        }
+    }
+
+    @Override
+    public void onScroll(AbsListView view, int firstVisibleItem, int visibleItemCount,
+                         int totalItemCount) {
+        if (mDelegate != null) {
+            mDelegate.onScroll(view, firstVisibleItem, visibleItemCount, totalItemCount);
+        }
+    }
+
+    /**
+     * 完成可见卡片的绑定, 不可见的卡片在下一次getView时完整绑定.
+     */
+    private static void completeVisibleCards(AbsListView listView) {
+        for (int i = 0; i < listView.getChildCount(); ++i) {
+            View child = listView.getChildAt(i);
+            CardPresenter presenter = ViewTagger.getCardPresenter(child);
+            if (presenter != null && presenter.isDegraded()) {
+                presenter.completeBind();
+            }
+        }
+    }
+}
@@ -0,0 +1,177 @@
+package code.jesse.palette.bind;
+
+import android.content.res.Configuration;
+import android.util.SparseArray;
+import android.view.View;
+
+import java.util.List;
+
+import code.jesse.palette.bind.resolver.Expression;
+import code.jesse.palette.bind.resolver.ResolveUtils;
+
+/**
+ * 一个layout的绑定计划: layout中所有声明了bindValue的View(按inflate时的创建顺序编号)及其编译后的表达式.
+ * <p/>
+ * 绑定计划在layout第一次通过{@link code.jesse.palette.tools.ViewInflater}inflate时收集, 之后同一个layout的
+ * 所有实例共享它, 再次inflate时不再读取bindValue属性. 每个实例的View保存在根View的{@link Instance}中,
+ * 由{@link BindingPlanPresenter}一次遍历完成整张卡片的绑定.
+ * <p/>
+ * 不同配置(例如横竖屏)下同一个layout id可能对应不同的layout文件, 因此计划会记录收集时的{@link Configuration},
+ * 配置变化时重新收集. 计划还记录了所有View的id, inflate时发现不一致就在同一次inflate中重新收集.
+ * 计划收集之后注册的{@link LayoutBinder}会在下一次求值时生效. 绑定计划只应在主线程访问.
+ *
+ * @author zhulantian@gmail.com
+ */
+public final class BindingPlan {
+
+    private static final SparseArray<BindingPlan> sPlans = new SparseArray<>();
+
+    private final int mLayoutId;
+    private final Configuration mConfiguration;
+    private final int[] mCreatedViewIds;
+    private final int[] mViewIndexes;
+    private final int[] mViewIds;
+    private final String[] mBindValues;
+    private final int[] mItemLayouts;
+    private final Expression[] mExpressions;
+    private final Expression[] mGeneratedExpressions;
+    private Class<?> mModelClass;
+    private int mLayoutBinderVersion;
+
+    private BindingPlan(int layoutId, Configuration configuration, List<Integer> createdViewIds,
+                        List<Integer> viewIndexes, List<View> views, List<String> bindValues,
+                        List<Integer> itemLayouts) {
+        int size = viewIndexes.size();
+        mLayoutId = layoutId;
+        mConfiguration = configuration == null ? null : new Configuration(configuration);
+        mCreatedViewIds = new int[createdViewIds.size()];
+        for (int i = 0; i < mCreatedViewIds.length; ++i) {
+            mCreatedViewIds[i] = createdViewIds.get(i);
+        }
+        mViewIndexes = new int[size];
+        mViewIds = new int[size];
+        mBindValues = bindValues.toArray(new String[size]);
+        mItemLayouts = new int[size];
+        mExpressions = new Expression[size];
+        mGeneratedExpressions = new Expression[size];
+        for (int i = 0; i < size; ++i) {
+            mViewIndexes[i] = viewIndexes.get(i);
+            mViewIds[i] = views.get(i).getId();
+            mItemLayouts[i] = itemLayouts.get(i);
+            mExpressions[i] = ResolveUtils.compile(mBindValues[i]);
+        }
+        updateLayoutBinder();
+    }
+
+    /**
+     * 创建并登记绑定计划.
+     *
+     * @param createdViewIds 按创建顺序排列的所有View的id, 用来检查之后inflate的layout与计划是否一致.
+     */
+    static BindingPlan create(int layoutId, Configuration configuration,
+                              List<Integer> createdViewIds, List<Integer> viewIndexes,
+                              List<View> views, List<String> bindValues,
+                              List<Integer> itemLayouts) {
+        BindingPlan plan = new BindingPlan(layoutId, configuration, createdViewIds, viewIndexes,
+                views, bindValues, itemLayouts);
+        sPlans.put(layoutId, plan);
+        return plan;
+    }
+
+    /**
+     * @return 当前配置下layout的绑定计划, 还没有收集过时返回null.
+     */
+    public static BindingPlan get(int layoutId, Configuration configuration) {
+        BindingPlan plan = sPlans.get(layoutId);
+        if (plan != null && configuration != null && plan.mConfiguration != null
+                && !plan.mConfiguration.equals(configuration)) {
+            return null;
+        }
+        return plan;
+    }
+
+    static void remove(int layoutId) {
+        sPlans.remove(layoutId);
+    }
+
+    public int getLayoutId() {
+        return mLayoutId;
+    }
+
+    public int size() {
+        return mViewIndexes.length;
+    }
+
+    /**
+     * @return 收集计划时创建的View总数.
+     */
+    int getCreatedViewCount() {
+        return mCreatedViewIds.length;
+    }
+
+    /**
+     * @return 第index个创建的View的id与收集计划时是否一致.
+     */
+    boolean matches(int index, int viewId) {
+        return index < mCreatedViewIds.length && mCreatedViewIds[index] == viewId;
+    }
+
+    int getCreatedViewId(int index) {
+        return mCreatedViewIds[index];
+    }
+
+    int getViewIndex(int i) {
+        return mViewIndexes[i];
+    }
+
+    int getViewId(int i) {
+        return mViewIds[i];
+    }
+
+    String getBindValue(int i) {
+        return mBindValues[i];
+    }
+
+    int getItemLayout(int i) {
+        return mItemLayouts[i];
+    }
+
+    /**
+     * 对第i个View的表达式求值, 优先使用编译期生成的表达式.
+     */
+    Object evaluate(int i, Object model) {
+        if (mLayoutBinderVersion != LayoutBinders.getVersion()) {
+            updateLayoutBinder();
+        }
+        Expression generated = mGeneratedExpressions[i];
+        if (generated != null && mModelClass.isInstance(model)) {
+            return generated.evaluate(model);
+        }
+        return mExpressions[i].evaluate(model);
+    }
+
+    /**
+     * 重新查找编译期生成的表达式, LayoutBinder可能在计划收集之后才注册.
+     */
+    private void updateLayoutBinder() {
+        mLayoutBinderVersion = LayoutBinders.getVersion();
+        LayoutBinder binder = LayoutBinders.get(mLayoutId);
+        mModelClass = binder == null ? null : binder.getModelClass();
+        for (int i = 0; i < mGeneratedExpressions.length; ++i) {
+            mGeneratedExpressions[i] = binder == null ? null : binder.getExpression(mViewIds[i]);
+        }
+    }
+
+    /**
+     * 绑定计划在一个layout实例上的View, 与计划中的条目一一对应, 没有创建成功的View为null.
+     */
+    public static final class Instance {
+        public final BindingPlan plan;
+        public final View[] views;
+
+        Instance(BindingPlan plan, View[] views) {
+            this.plan = plan;
+            this.views = views;
+        }
+    }
+}
@@ -0,0 +1,60 @@
+package code.jesse.palette.bind;
+
+import android.util.Log;
+import android.view.View;
+
+import code.jesse.palette.tools.ViewTagger;
+import code.jesse.palette.trace.BindTracer;
+import code.jesse.palette.trace.Tracing;
+
+/**
+ * 按layout的{@link BindingPlan}一次完成整张卡片上所有bindValue的绑定, 用于代替在每个View上分别设置
+ * {@link BindingPresenter}.
+ * <p/>
+ * Example:
+ * CardPresenter.add(new BindingPlanPresenter());
+ * <p/>
+ * 要求卡片通过{@link code.jesse.palette.tools.ViewInflater}inflate. 对每个值的绑定方式与{@link BindingPresenter}相同,
+ * 开启脏检查时每个View分别记录上一次的值.
+ *
+ * @author zhulantian@gmail.com
+ */
+public class BindingPlanPresenter extends BindingPresenter {
+
+    private static final String LOG_TAG = "BindingPlanPresenter";
+
+    private BindingPlan.Instance mInstance;
+
+    @Override
+    public void bind(Object model) {
+        if (mInstance == null) {
+            mInstance = ViewTagger.getBindingPlan(view());
+            if (mInstance == null) {
+                Log.w(LOG_TAG, "No binding plan found, is the card inflated by ViewInflater?");
+                return;
+            }
+        }
+        BindingPlan plan = mInstance.plan;
+        View[] views = mInstance.views;
+        BindTracer tracer = Tracing.getTracer();
+        for (int i = 0; i < views.length; ++i) {
+            View view = views[i];
+            if (view == null) {
+                continue;
+            }
+            if (tracer == null) {
+                bindValue(i, view, plan.evaluate(i, model));
+            } else {
+                tracer.beginSection(BindTracer.SECTION_RESOLVE, this, view.getId());
+                Object value = plan.evaluate(i, model);
+                tracer.endSection(BindTracer.SECTION_RESOLVE);
+                bindValue(i, view, value);
+            }
+        }
+    }
+
+    @Override
+    int getSlotCount() {
+        return mInstance == null ? 1 : mInstance.views.length;
+    }
+}
@@ -6,16 +6,47 @@ import android.view.View;
 import android.widget.TextView;
 
 import code.jesse.palette.ViewPresenter;
+import code.jesse.palette.bind.resolver.Expression;
 import code.jesse.palette.bind.resolver.ResolveUtils;
 import code.jesse.palette.tools.ViewTagger;
+import code.jesse.palette.trace.BindTracer;
+import code.jesse.palette.trace.Tracing;
 
 /**
+ * 根据View上的bindValue绑定Model的属性.
+ * <p/>
+ * 可以通过{@link #setDirtyChecking(boolean)}开启脏检查: 记住每个View上一次设置的值, 新值相等时跳过对View的
+ * 修改(setText/setVisibility都可能触发requestLayout和文字测量). 开启后View只应由这个Presenter修改,
+ * 否则View的实际状态可能与记录的值不一致. 只有不可变的值(String, 包装类型, null)会参与比较.
+ * <p/>
+ * 值按其类型和View的类型交给{@link ValueBinders}中注册的{@link ValueBinder}设置到View上.
+ *
  * @author zhulantian@gmail.com
  */
 public class BindingPresenter extends ViewPresenter {
 
     private static final String LOG_TAG = "BindingPresenter";
 
+    /**
+     * 表示还没有记录过值.
+     */
+    private static final Object UNSET = new Object();
+
+    private static boolean sDefaultDirtyChecking;
+    private static long sTotalSkippedCount;
+    private static long sTotalAppliedCount;
+
+    private boolean mDirtyChecking = sDefaultDirtyChecking;
+    private Object[] mLastValues;
+    private long mSkippedCount;
+    private long mAppliedCount;
+
+    private String mBindValue;
+    private Expression mExpression;
+    private LayoutBinder mLayoutBinder;
+    private int mLayoutBinderVersion;
+    private Expression mGeneratedExpression;
+
     @Override
     public void bind(Object model) {
         String bindValue = ViewTagger.getBindValue(view());
@@ -23,53 +54,195 @@ public class BindingPresenter extends ViewPresenter {
             Log.w(LOG_TAG, "No bind value found!");
             return;
         }
-        // 此处可作为扩展入口，目前只实现了最简单的表达式
-        // ==> Resolve的扩展
-        // 此处可作为扩展入口，目前只实现了最简单的表达式
-        // ==> Resolve的扩展
+        // ==> Resolve, 参见ResolveUtils.compile()
         //     1. 数据源:
-        //          a. 参数Model为数据源, eg: ${.age}, ${.screenName}
-        //          b. 上下文为数据源, eg: ${context.systemTime}, ${context.appName}
-        //          c. 环境变量为数据源, eg: ${env.javaHome}, ${env.classPath}
-        //          其它自定义数据源...
+        //          a. 参数Model为数据源, eg: ${.age}, ${model.screenName}
+        //          b. 注册的具名数据源, eg: ${context.appName}, ${env.debug}
         //
         //     2. 表达式:
-        //          a. 静态文本, eg: 'hello, mvp!', 123456, 3.14156
-        //          b. 动态表达式, eg: ${model.age > 0 ? model.age : 0}, ${substring(model.title, 3)}
-        //          其它自定义表达式...
+        //          a. 静态文本, eg: hello, mvp!
+        //          b. 动态表达式, eg: ${.age > 0 ? .age : 0}, ${substring(.title, 3)}
+        //          c. 文本模板, eg: Hello ${.screenName}!
         //
-        //     3. 指令(代码执行):
+        //     3. 指令(代码执行), 尚未实现:
         //          a. 动态执行一些指令，便于在运行时处理逻辑, eg: <mvp:playAnimation attr='${model.anim}'>
-        //          其它自定义指令...
         //
-        // ==> Bind扩展
-        //      1. 针对不同结果类型, 例如Text, Number, Image, List做不同绑定方式
-        //      其它自定义绑定方式...
+        // ==> Bind扩展, 参见ValueBinders
+        //      1. 按(结果类型, View类型)选择绑定方式, 内置Text, Number, Boolean, Drawable, 资源id, List等
+        //      2. 其它自定义绑定方式通过ValueBinders.register()注册
         //
+        BindTracer tracer = Tracing.getTracer();
+        if (tracer != null) {
+            tracer.beginSection(BindTracer.SECTION_RESOLVE, this, view().getId());
+        }
         Object resolvedValue = resolveValue(model, bindValue);
-        bindInternal(resolvedValue);
+        if (tracer != null) {
+            tracer.endSection(BindTracer.SECTION_RESOLVE);
+        }
+        bindValue(0, view(), resolvedValue);
+    }
+
+    @Override
+    public void unbind() {
+        clearLastValues();
+    }
+
+    /**
+     * 只是对已编译的表达式求值并设置到View上, 可以在滑动中绑定.
+     */
+    @Override
+    public boolean isFlingSafe() {
+        return true;
+    }
+
+    /**
+     * 绑定null或者空文本会隐藏View, 因此不能推迟到View可见时绑定.
+     */
+    @Override
+    public int getVisibilityPolicy() {
+        return VISIBILITY_EAGER;
+    }
+
+    private Object resolveValue(Object model, String bindValue) {
+        // bindValue对同一个View是不变的, 只在第一次或者tag被修改时查找编译结果
+        if (mExpression == null || !bindValue.equals(mBindValue)) {
+            mExpression = ResolveUtils.compile(bindValue);
+            mBindValue = bindValue;
+            mLayoutBinderVersion = LayoutBinders.getVersion() - 1;
+        }
+        // LayoutBinder可能在第一次绑定之后才注册
+        if (mLayoutBinderVersion != LayoutBinders.getVersion()) {
+            mLayoutBinderVersion = LayoutBinders.getVersion();
+            mLayoutBinder = LayoutBinders.get(ViewTagger.getLayoutId(card().view()));
+            mGeneratedExpression = mLayoutBinder == null
+                    ? null : mLayoutBinder.getExpression(view().getId());
+        }
+        // 优先使用编译期生成的表达式, Model类型不匹配时退回到反射
+        if (mGeneratedExpression != null && mLayoutBinder.getModelClass().isInstance(model)) {
+            return mGeneratedExpression.evaluate(model);
+        }
+        return mExpression.evaluate(model);
+    }
+
+    /**
+     * 设置新创建的BindingPresenter默认是否开启脏检查.
+     */
+    public static void setDefaultDirtyChecking(boolean dirtyChecking) {
+        sDefaultDirtyChecking = dirtyChecking;
+    }
+
+    /**
+     * @return 所有BindingPresenter因为值未变化而跳过的绑定次数.
+     */
+    public static long getTotalSkippedCount() {
+        return sTotalSkippedCount;
+    }
+
+    /**
+     * @return 所有BindingPresenter实际修改View的绑定次数.
+     */
+    public static long getTotalAppliedCount() {
+        return sTotalAppliedCount;
+    }
+
+    public static void resetTotalCounts() {
+        sTotalSkippedCount = 0;
+        sTotalAppliedCount = 0;
+    }
+
+    /**
+     * 开启或者关闭脏检查, 关闭时会清除记录的值.
+     */
+    public void setDirtyChecking(boolean dirtyChecking) {
+        mDirtyChecking = dirtyChecking;
+        if (!dirtyChecking) {
+            mLastValues = null;
+        }
     }
 
-    private static Object resolveValue(Object model, String bindValue) {
-        final String prefix = "${.";
-        final String suffix = "}";
-        if (bindValue.startsWith(prefix) && bindValue.endsWith(suffix)) {
-            String resolvedValue = bindValue.substring(prefix.length());
-            resolvedValue = resolvedValue.substring(0, resolvedValue.length() - suffix.length());
+    public boolean isDirtyChecking() {
+        return mDirtyChecking;
+    }
 
-            return ResolveUtils.resolveValue(model, resolvedValue);
+    public long getSkippedCount() {
+        return mSkippedCount;
+    }
+
+    public long getAppliedCount() {
+        return mAppliedCount;
+    }
+
+    /**
+     * 清除记录的值, 下一次绑定一定会修改View. 在View被外部修改之后调用.
+     */
+    public void clearLastValues() {
+        if (mLastValues != null) {
+            for (int i = 0; i < mLastValues.length; ++i) {
+                mLastValues[i] = UNSET;
+            }
         }
-        return bindValue;
     }
 
-    private void bindInternal(Object value) {
+    /**
+     * @param slot  View的编号, 用于记录上一次的值.
+     * @param view  被绑定的View.
+     * @param value 绑定的值.
+     */
+    final void bindValue(int slot, View view, Object value) {
+        if (mDirtyChecking && isUnchanged(slot, value)) {
+            mSkippedCount++;
+            sTotalSkippedCount++;
+            return;
+        }
+        mAppliedCount++;
+        sTotalAppliedCount++;
         if (value == null) {
-            bindNull(view());
-        } else if (value instanceof CharSequence) {
-            bindText((TextView) view(), (CharSequence) value);
+            bindNull(view);
+            return;
+        }
+        ValueBinder<Object, View> binder = ValueBinders.find(value.getClass(), view.getClass());
+        if (binder == (ValueBinder<?, ?>) ValueBinders.TEXT) {
+            // 保留bindText作为子类的扩展点
+            bindText((TextView) view, (CharSequence) value);
+        } else if (binder != null) {
+            binder.bind(view, value);
         }
     }
 
+    /**
+     * 与上一次的值比较, 并记录新的值.
+     */
+    private boolean isUnchanged(int slot, Object value) {
+        if (mLastValues == null || mLastValues.length <= slot) {
+            Object[] lastValues = new Object[Math.max(slot + 1, getSlotCount())];
+            for (int i = 0; i < lastValues.length; ++i) {
+                lastValues[i] = mLastValues != null && i < mLastValues.length ? mLastValues[i] : UNSET;
+            }
+            mLastValues = lastValues;
+        }
+        Object last = mLastValues[slot];
+        if (!isImmutable(value)) {
+            mLastValues[slot] = UNSET;
+            return false;
+        }
+        mLastValues[slot] = value;
+        return last != UNSET && (last == value || (value != null && value.equals(last)));
+    }
+
+    /**
+     * @return 需要记录值的View数目.
+     */
+    int getSlotCount() {
+        return 1;
+    }
+
+    private static boolean isImmutable(Object value) {
+        return value == null || value instanceof String || value instanceof Integer
+                || value instanceof Long || value instanceof Boolean || value instanceof Double
+                || value instanceof Float || value instanceof Short || value instanceof Byte
+                || value instanceof Character;
+    }
+
     /**
      * 在属性为null时调用。
      */
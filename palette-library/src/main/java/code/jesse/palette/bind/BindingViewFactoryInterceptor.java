@@ -5,6 +5,9 @@ import android.text.TextUtils;
 import android.util.AttributeSet;
 import android.view.View;
 
+import java.util.ArrayList;
+import java.util.List;
+
 import code.jesse.palette.R;
 import code.jesse.palette.tools.ViewTagger;
 
@@ -14,6 +17,41 @@ import code.jesse.palette.tools.ViewTagger;
  */
 public class BindingViewFactoryInterceptor {
 
+    /**
+     * 已有的绑定计划, 为null时在本次inflate中收集.
+     */
+    private final BindingPlan mPlan;
+
+    /**
+     * 是否在收集新的计划: 没有计划, 或者发现已有的计划与实际的layout不一致.
+     */
+    private boolean mCollecting;
+    private List<Integer> mCreatedViewIds;
+    private List<Integer> mViewIndexes;
+    private List<View> mViews;
+    private List<String> mBindValues;
+    private List<Integer> mItemLayouts;
+
+    private View[] mPlanViews;
+    private int mNextEntry;
+    private int mViewCount;
+
+    public BindingViewFactoryInterceptor() {
+        this(null);
+    }
+
+    /**
+     * @param plan 要inflate的layout已有的绑定计划, 为null时收集新的计划.
+     */
+    public BindingViewFactoryInterceptor(BindingPlan plan) {
+        mPlan = plan;
+        if (plan != null) {
+            mPlanViews = new View[plan.size()];
+        } else {
+            startCollecting();
+        }
+    }
+
     /**
      * 在View创建完成时为View设置其bindingValue的值.
      *
@@ -21,11 +59,112 @@ public class BindingViewFactoryInterceptor {
      * @param attrs 被创建View的属性.
      */
     public void onViewCreated(View view, AttributeSet attrs) {
+        readBindValue(view, attrs);
+    }
+
+    /**
+     * 在View创建完成时调用, 有绑定计划时按编号取出计划中的View, 否则读取bindValue并记录到新的计划中.
+     * <p/>
+     * View的id与计划不一致时, 从这个View开始改为读取bindValue, 之前的View沿用计划中已经核对过的条目.
+     *
+     * @param index 这个View在本次inflate中的创建顺序.
+     * @param view  被创建的View.
+     * @param attrs 被创建View的属性.
+     */
+    public void onViewCreated(int index, View view, AttributeSet attrs) {
+        mViewCount = Math.max(mViewCount, index + 1);
+        if (!mCollecting) {
+            if (mPlan.matches(index, view.getId())) {
+                while (mNextEntry < mPlan.size() && mPlan.getViewIndex(mNextEntry) < index) {
+                    mNextEntry++;
+                }
+                if (mNextEntry < mPlan.size() && mPlan.getViewIndex(mNextEntry) == index) {
+                    mPlanViews[mNextEntry] = view;
+                    ViewTagger.setBindValue(view, mPlan.getBindValue(mNextEntry));
+                    if (mPlan.getItemLayout(mNextEntry) != 0) {
+                        ViewTagger.setItemLayout(view, mPlan.getItemLayout(mNextEntry));
+                    }
+                    mNextEntry++;
+                }
+                return;
+            }
+            switchToCollecting(index);
+        }
+        while (mCreatedViewIds.size() < index) {
+            // 由LayoutInflater自己创建的View不经过这里
+            mCreatedViewIds.add(View.NO_ID);
+        }
+        mCreatedViewIds.add(view.getId());
+        String bindValue = readBindValue(view, attrs);
+        if (bindValue != null) {
+            mViewIndexes.add(index);
+            mViews.add(view);
+            mBindValues.add(bindValue);
+            mItemLayouts.add(ViewTagger.getItemLayout(view));
+        }
+    }
+
+    /**
+     * 在整个layout inflate完成时调用, 登记新收集的绑定计划, 并把本实例的View保存到根View上.
+     *
+     * @param root     layout的根View.
+     * @param layoutId layout的资源id.
+     */
+    public void onInflateFinished(View root, int layoutId) {
+        if (!mCollecting && mViewCount != mPlan.getCreatedViewCount()) {
+            // 创建的View比计划中少, 已创建的View都与计划一致
+            switchToCollecting(mViewCount);
+        }
+        BindingPlan plan = mPlan;
+        View[] views = mPlanViews;
+        if (mCollecting) {
+            plan = BindingPlan.create(layoutId, root.getResources().getConfiguration(),
+                    mCreatedViewIds, mViewIndexes, mViews, mBindValues, mItemLayouts);
+            views = mViews.toArray(new View[mViews.size()]);
+        }
+        if (views.length > 0) {
+            ViewTagger.setBindingPlan(root, new BindingPlan.Instance(plan, views));
+        }
+    }
+
+    private void startCollecting() {
+        mCollecting = true;
+        mCreatedViewIds = new ArrayList<>();
+        mViewIndexes = new ArrayList<>();
+        mViews = new ArrayList<>();
+        mBindValues = new ArrayList<>();
+        mItemLayouts = new ArrayList<>();
+    }
+
+    /**
+     * 已有的计划与实际的layout不一致, 把编号在index之前(已经与计划核对过)的条目转入新的计划.
+     */
+    private void switchToCollecting(int index) {
+        startCollecting();
+        for (int i = 0; i < index; ++i) {
+            mCreatedViewIds.add(mPlan.getCreatedViewId(i));
+        }
+        for (int i = 0; i < mPlan.size() && mPlan.getViewIndex(i) < index; ++i) {
+            mViewIndexes.add(mPlan.getViewIndex(i));
+            mViews.add(mPlanViews[i]);
+            mBindValues.add(mPlan.getBindValue(i));
+            mItemLayouts.add(mPlan.getItemLayout(i));
+        }
+    }
+
+    private static String readBindValue(View view, AttributeSet attrs) {
         TypedArray a = view.getContext().obtainStyledAttributes(attrs, R.styleable.Binding);
         String bindValue = a.getString(R.styleable.Binding_bindValue);
         if (!TextUtils.isEmpty(bindValue)) {
             ViewTagger.setBindValue(view, bindValue);
+            int itemLayout = a.getResourceId(R.styleable.Binding_bindItemLayout, 0);
+            if (itemLayout != 0) {
+                ViewTagger.setItemLayout(view, itemLayout);
+            }
+        } else {
+            bindValue = null;
         }
         a.recycle();
+        return bindValue;
     }
 }
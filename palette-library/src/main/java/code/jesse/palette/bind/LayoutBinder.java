@@ -0,0 +1,27 @@
+package code.jesse.palette.bind;
+
+import code.jesse.palette.bind.resolver.Expression;
+
+/**
+ * 一个layout的预生成绑定代码, 一般由palette-compiler根据layout中的bindValue在编译期生成, 生成的表达式
+ * 直接访问Model的字段, 不使用反射.
+ * <p/>
+ * 通过{@link LayoutBinders#register(int, LayoutBinder)}注册后, {@link BindingPresenter}会优先使用它.
+ *
+ * @author zhulantian@gmail.com
+ */
+public interface LayoutBinder {
+
+    /**
+     * @return layout声明的Model类型(bindModel), 只有Model是这个类型时才会使用预生成的表达式.
+     */
+    Class<?> getModelClass();
+
+    /**
+     * 获取View对应的预生成表达式.
+     *
+     * @param viewId View的id.
+     * @return 预生成的表达式, 没有时返回null.
+     */
+    Expression getExpression(int viewId);
+}
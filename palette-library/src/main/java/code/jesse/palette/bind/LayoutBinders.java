@@ -0,0 +1,68 @@
+package code.jesse.palette.bind;
+
+import android.util.Log;
+import android.util.SparseArray;
+
+import code.jesse.palette.tools.JavaCalls;
+
+/**
+ * layout id到{@link LayoutBinder}的注册表.
+ * <p/>
+ * palette-compiler会生成一个PaletteBinders类, 它在应用代码编译之后才生成, 因此应用代码不能直接引用它,
+ * 在Application初始化时调用{@link #registerGenerated(String)}即可完成注册. 注册表只应在主线程访问.
+ *
+ * @author zhulantian@gmail.com
+ */
+public class LayoutBinders {
+
+    private static final String LOG_TAG = "LayoutBinders";
+
+    private static final SparseArray<LayoutBinder> sBinders = new SparseArray<>();
+
+    /**
+     * 注册表的版本, 每次注册或者注销时加一, 缓存了LayoutBinder的地方据此重新查找.
+     */
+    private static int sVersion;
+
+    private LayoutBinders() {
+        // utility class
+    }
+
+    public static void register(int layoutId, LayoutBinder binder) {
+        sBinders.put(layoutId, binder);
+        sVersion++;
+    }
+
+    /**
+     * 调用palette-compiler生成的注册类的registerAll().
+     *
+     * @param className 生成的注册类, eg: com.example.binding.PaletteBinders.
+     * @return 是否注册成功, 类不存在(例如没有执行生成任务)时返回false.
+     */
+    public static boolean registerGenerated(String className) {
+        try {
+            JavaCalls.callStaticMethodOrThrow(className, "registerAll");
+            return true;
+        } catch (Exception e) {
+            Log.w(LOG_TAG, "Can't register generated binders " + className, e);
+            return false;
+        }
+    }
+
+    public static void unregister(int layoutId) {
+        sBinders.remove(layoutId);
+        sVersion++;
+    }
+
+    /**
+     * @param layoutId layout的资源id.
+     * @return 注册的LayoutBinder, 没有时返回null.
+     */
+    public static LayoutBinder get(int layoutId) {
+        return sBinders.get(layoutId);
+    }
+
+    static int getVersion() {
+        return sVersion;
+    }
+}
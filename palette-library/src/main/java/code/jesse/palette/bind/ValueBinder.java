@@ -0,0 +1,18 @@
+package code.jesse.palette.bind;
+
+import android.view.View;
+
+/**
+ * 把bindValue的求值结果设置到View上.
+ * <p/>
+ * 按(值类型, View类型)登记到{@link ValueBinders}, {@link BindingPresenter}根据值和View的实际类型选择.
+ * 值为null时不会调用ValueBinder, 参见{@link BindingPresenter#bindNull(View)}.
+ *
+ * @param <V> 值类型.
+ * @param <T> View类型.
+ * @author zhulantian@gmail.com
+ */
+public interface ValueBinder<V, T extends View> {
+
+    void bind(T view, V value);
+}
@@ -0,0 +1,337 @@
+package code.jesse.palette.bind;
+
+import android.content.res.ColorStateList;
+import android.graphics.drawable.Drawable;
+import android.util.Log;
+import android.view.View;
+import android.view.ViewGroup;
+import android.widget.CompoundButton;
+import android.widget.ImageView;
+import android.widget.ProgressBar;
+import android.widget.TextView;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import code.jesse.palette.CardPresenter;
+import code.jesse.palette.tools.ViewInflater;
+import code.jesse.palette.tools.ViewTagger;
+
+/**
+ * {@link ValueBinder}的注册表, 按(值类型, View类型)查找.
+ * <p/>
+ * 查找时值类型优先: 先按值的类、父类、接口的顺序, 对每个值类型再从View的类向上查找到View. 查找结果(包括没有找到)
+ * 按(值的类, View的类)缓存, 预热之后每次查找是两次HashMap读取. 注册新的ValueBinder会清空缓存.
+ * <p/>
+ * 内置:
+ * CharSequence -> TextView: setText, 空文本时隐藏.
+ * Number -> TextView: 显示数字, 整数不产生临时对象.
+ * Number -> ProgressBar: setProgress.
+ * Boolean -> View: true显示, false隐藏.
+ * Boolean -> CompoundButton: setChecked.
+ * Drawable -> ImageView: setImageDrawable.
+ * Drawable -> View: 设置背景.
+ * Integer -> ImageView: 作为图片资源id.
+ * ColorStateList -> TextView: setTextColor.
+ * List -> ViewGroup: 用bindItemLayout为每个元素创建一张子卡片, 子卡片由{@link BindingPlanPresenter}绑定.
+ * <p/>
+ * 注册表只应在主线程访问.
+ *
+ * @author zhulantian@gmail.com
+ */
+public final class ValueBinders {
+
+    private static final String LOG_TAG = "ValueBinders";
+
+    /**
+     * 整数的最大字符数, Long.MIN_VALUE: -9223372036854775808.
+     */
+    private static final int MAX_NUMBER_LENGTH = 20;
+
+    private static final ValueBinder<Object, View> MISSING = new ValueBinder<Object, View>() {
+        @Override
+        public void bind(View view, Object value) {
+        }
+    };
+
+    /**
+     * CharSequence -> TextView, {@link BindingPresenter}会改为调用可覆盖的bindText.
+     */
+    public static final ValueBinder<CharSequence, TextView> TEXT =
+            new ValueBinder<CharSequence, TextView>() {
+                @Override
+                public void bind(TextView view, CharSequence value) {
+                    if (value.length() == 0) {
+                        view.setVisibility(View.GONE);
+                    } else {
+                        view.setText(value);
+                        view.setVisibility(View.VISIBLE);
+                    }
+                }
+            };
+
+    public static final ValueBinder<Number, TextView> NUMBER_TEXT =
+            new ValueBinder<Number, TextView>() {
+                @Override
+                public void bind(TextView view, Number value) {
+                    if (value instanceof Integer || value instanceof Long
+                            || value instanceof Short || value instanceof Byte) {
+                        setNumberText(view, value.longValue());
+                    } else {
+                        view.setText(value.toString());
+                    }
+                    view.setVisibility(View.VISIBLE);
+                }
+            };
+
+    public static final ValueBinder<Number, ProgressBar> NUMBER_PROGRESS =
+            new ValueBinder<Number, ProgressBar>() {
+                @Override
+                public void bind(ProgressBar view, Number value) {
+                    view.setProgress(value.intValue());
+                    view.setVisibility(View.VISIBLE);
+                }
+            };
+
+    public static final ValueBinder<Boolean, View> BOOLEAN_VISIBILITY =
+            new ValueBinder<Boolean, View>() {
+                @Override
+                public void bind(View view, Boolean value) {
+                    view.setVisibility(value ? View.VISIBLE : View.GONE);
+                }
+            };
+
+    public static final ValueBinder<Boolean, CompoundButton> BOOLEAN_CHECKED =
+            new ValueBinder<Boolean, CompoundButton>() {
+                @Override
+                public void bind(CompoundButton view, Boolean value) {
+                    view.setChecked(value);
+                    view.setVisibility(View.VISIBLE);
+                }
+            };
+
+    public static final ValueBinder<Drawable, ImageView> DRAWABLE_IMAGE =
+            new ValueBinder<Drawable, ImageView>() {
+                @Override
+                public void bind(ImageView view, Drawable value) {
+                    view.setImageDrawable(value);
+                    view.setVisibility(View.VISIBLE);
+                }
+            };
+
+    public static final ValueBinder<Drawable, View> DRAWABLE_BACKGROUND =
+            new ValueBinder<Drawable, View>() {
+                @SuppressWarnings("deprecation")
+                @Override
+                public void bind(View view, Drawable value) {
+                    // setBackground需要API 16
+                    view.setBackgroundDrawable(value);
+                    view.setVisibility(View.VISIBLE);
+                }
+            };
+
+    public static final ValueBinder<Integer, ImageView> RESOURCE_IMAGE =
+            new ValueBinder<Integer, ImageView>() {
+                @Override
+                public void bind(ImageView view, Integer value) {
+                    view.setImageResource(value);
+                    view.setVisibility(View.VISIBLE);
+                }
+            };
+
+    public static final ValueBinder<ColorStateList, TextView> COLOR_TEXT =
+            new ValueBinder<ColorStateList, TextView>() {
+                @Override
+                public void bind(TextView view, ColorStateList value) {
+                    view.setTextColor(value);
+                }
+            };
+
+    public static final ValueBinder<List<?>, ViewGroup> LIST_CONTAINER =
+            new ValueBinder<List<?>, ViewGroup>() {
+                @Override
+                public void bind(ViewGroup view, List<?> value) {
+                    bindList(view, value);
+                }
+            };
+
+    @SuppressWarnings("unchecked")
+    private static final Class<List<?>> LIST_CLASS = (Class<List<?>>) (Class<?>) List.class;
+
+    private static final Map<Class<?>, Map<Class<?>, ValueBinder<?, ?>>> sBinders = new HashMap<>();
+    private static final Map<Class<?>, Map<Class<?>, ValueBinder<?, ?>>> sDispatchCache =
+            new HashMap<>();
+
+    static {
+        register(CharSequence.class, TextView.class, TEXT);
+        register(Number.class, TextView.class, NUMBER_TEXT);
+        register(Number.class, ProgressBar.class, NUMBER_PROGRESS);
+        register(Boolean.class, View.class, BOOLEAN_VISIBILITY);
+        register(Boolean.class, CompoundButton.class, BOOLEAN_CHECKED);
+        register(Drawable.class, ImageView.class, DRAWABLE_IMAGE);
+        register(Drawable.class, View.class, DRAWABLE_BACKGROUND);
+        register(Integer.class, ImageView.class, RESOURCE_IMAGE);
+        register(ColorStateList.class, TextView.class, COLOR_TEXT);
+        register(LIST_CLASS, ViewGroup.class, LIST_CONTAINER);
+    }
+
+    private ValueBinders() {
+        // utility
+    }
+
+    /**
+     * 注册一个ValueBinder, 替换已有的(值类型, View类型)的ValueBinder.
+     * <p/>
+     * Example:
+     * ValueBinders.register(Uri.class, ImageView.class, new ValueBinder<Uri, ImageView>() {...});
+     *
+     * @param valueClass 值类型, 也匹配其子类和实现类.
+     * @param viewClass  View类型, 也匹配其子类.
+     * @param binder     为null时删除已有的注册.
+     */
+    public static <V, T extends View> void register(Class<V> valueClass, Class<T> viewClass,
+                                                    ValueBinder<? super V, ? super T> binder) {
+        Map<Class<?>, ValueBinder<?, ?>> byView = sBinders.get(valueClass);
+        if (binder == null) {
+            if (byView != null) {
+                byView.remove(viewClass);
+            }
+        } else {
+            if (byView == null) {
+                byView = new HashMap<>();
+                sBinders.put(valueClass, byView);
+            }
+            byView.put(viewClass, binder);
+        }
+        sDispatchCache.clear();
+    }
+
+    /**
+     * @return 值类型和View类型对应的ValueBinder, 没有时返回null.
+     */
+    public static ValueBinder<Object, View> find(Class<?> valueClass, Class<? extends View> viewClass) {
+        Map<Class<?>, ValueBinder<?, ?>> byView = sDispatchCache.get(valueClass);
+        if (byView == null) {
+            byView = new HashMap<>();
+            sDispatchCache.put(valueClass, byView);
+        }
+        ValueBinder<?, ?> binder = byView.get(viewClass);
+        if (binder == null) {
+            binder = resolve(valueClass, viewClass);
+            if (binder == null) {
+                Log.w(LOG_TAG, "No value binder for " + valueClass.getName()
+                        + " -> " + viewClass.getName());
+                binder = MISSING;
+            }
+            byView.put(viewClass, binder);
+        }
+        return binder == MISSING ? null : (ValueBinder<Object, View>) binder;
+    }
+
+    private static ValueBinder<?, ?> resolve(Class<?> valueClass, Class<?> viewClass) {
+        for (Class<?> valueType : valueTypes(valueClass)) {
+            Map<Class<?>, ValueBinder<?, ?>> byView = sBinders.get(valueType);
+            if (byView == null) {
+                continue;
+            }
+            for (Class<?> viewType = viewClass; viewType != null; viewType = viewType.getSuperclass()) {
+                ValueBinder<?, ?> binder = byView.get(viewType);
+                if (binder != null) {
+                    return binder;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return 类、父类, 然后按层次展开的接口.
+     */
+    private static List<Class<?>> valueTypes(Class<?> clazz) {
+        List<Class<?>> types = new ArrayList<>();
+        for (Class<?> c = clazz; c != null; c = c.getSuperclass()) {
+            types.add(c);
+        }
+        int classCount = types.size();
+        for (int i = 0; i < types.size(); ++i) {
+            for (Class<?> interfaceType : types.get(i).getInterfaces()) {
+                if (!types.contains(interfaceType)) {
+                    types.add(interfaceType);
+                }
+            }
+        }
+        // Object放到最后, 使接口优先于Object
+        if (classCount > 0 && types.get(classCount - 1) == Object.class) {
+            types.remove(classCount - 1);
+            types.add(Object.class);
+        }
+        return types;
+    }
+
+    /**
+     * 把整数写到View自己的字符缓冲区中, TextView会直接引用这个缓冲区, 因此每个View使用单独的缓冲区.
+     */
+    private static void setNumberText(TextView view, long number) {
+        char[] buffer = ViewTagger.getNumberBuffer(view);
+        if (buffer == null) {
+            buffer = new char[MAX_NUMBER_LENGTH];
+            ViewTagger.setNumberBuffer(view, buffer);
+        }
+        int start = MAX_NUMBER_LENGTH;
+        boolean negative = number < 0;
+        do {
+            int digit = (int) (number % 10);
+            buffer[--start] = (char) ('0' + (negative ? -digit : digit));
+            number /= 10;
+        } while (number != 0);
+        if (negative) {
+            buffer[--start] = '-';
+        }
+        view.setText(buffer, start, MAX_NUMBER_LENGTH - start);
+    }
+
+    /**
+     * 每个元素对应一张子卡片, 按位置复用已有的子卡片, 多余的移除.
+     */
+    private static void bindList(ViewGroup container, List<?> list) {
+        int layoutId = ViewTagger.getItemLayout(container);
+        if (layoutId == 0) {
+            Log.w(LOG_TAG, "No bindItemLayout found for list container: "
+                    + Integer.toHexString(container.getId()));
+            return;
+        }
+        int size = list.size();
+        for (int i = 0; i < size; ++i) {
+            View itemView = i < container.getChildCount() ? container.getChildAt(i) : null;
+            if (itemView != null && ViewTagger.getLayoutId(itemView) != layoutId) {
+                unbindItem(itemView);
+                container.removeViewAt(i);
+                itemView = null;
+            }
+            CardPresenter presenter;
+            if (itemView == null) {
+                itemView = ViewInflater.inflate(container, layoutId);
+                presenter = new CardPresenter(itemView).add(new BindingPlanPresenter());
+                ViewTagger.setCardPresenterTag(itemView, presenter);
+                container.addView(itemView, i);
+            } else {
+                presenter = ViewTagger.getCardPresenter(itemView);
+            }
+            presenter.bind(list.get(i));
+        }
+        for (int i = container.getChildCount() - 1; i >= size; --i) {
+            unbindItem(container.getChildAt(i));
+            container.removeViewAt(i);
+        }
+        container.setVisibility(View.VISIBLE);
+    }
+
+    private static void unbindItem(View itemView) {
+        CardPresenter presenter = ViewTagger.getCardPresenter(itemView);
+        if (presenter != null) {
+            presenter.unbind();
+        }
+    }
+}
@@ -0,0 +1,15 @@
+package code.jesse.palette.bind.resolver;
+
+/**
+ * 读取某个类型上一个属性的访问器, 每个(Class, fieldName)创建一次, 创建后被缓存复用, 参见{@link Accessors}.
+ *
+ * @author zhulantian@gmail.com
+ */
+public interface Accessor {
+
+    /**
+     * @param target 属性所属的对象, 不为null.
+     * @return 属性值.
+     */
+    Object get(Object target);
+}
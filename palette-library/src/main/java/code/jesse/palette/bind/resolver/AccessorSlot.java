@@ -0,0 +1,47 @@
+package code.jesse.palette.bind.resolver;
+
+/**
+ * 表达式中一次属性访问的单态缓存, 记住最近一次访问的(Class, {@link Accessor}).
+ * <p/>
+ * 同一个表达式绝大多数时候只作用于同一种Model, 因此命中时只需要一次Class比较.
+ *
+ * @author zhulantian@gmail.com
+ */
+final class AccessorSlot {
+
+    private final String mFieldName;
+    private Entry mEntry;
+
+    AccessorSlot(String fieldName) {
+        mFieldName = fieldName;
+    }
+
+    Object get(Object target) {
+        Class<?> clazz = target.getClass();
+        Entry entry = mEntry;
+        if (entry == null || entry.clazz != clazz || entry.generation != Accessors.sGeneration) {
+            entry = new Entry(clazz, Accessors.get(clazz, mFieldName));
+            mEntry = entry;
+        }
+        return entry.accessor.get(target);
+    }
+
+    String getFieldName() {
+        return mFieldName;
+    }
+
+    /**
+     * 不可变, 因此可以不加锁地在多个线程间替换.
+     */
+    private static final class Entry {
+        final Class<?> clazz;
+        final Accessor accessor;
+        final int generation;
+
+        Entry(Class<?> clazz, Accessor accessor) {
+            this.clazz = clazz;
+            this.accessor = accessor;
+            this.generation = Accessors.sGeneration;
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package code.jesse.palette.bind.resolver;
+
+import java.lang.reflect.Field;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import code.jesse.palette.tools.JavaCalls;
+
+/**
+ * (Class, fieldName) -> {@link Accessor}的缓存.
+ * <p/>
+ * 默认的访问器只在第一次访问时通过{@link JavaCalls#findField(Class, String)}查找一次Field并持有它,
+ * 之后每次访问只是{@link Field#get(Object)}, 不再查找缓存表. 通过{@link #register(Class, String, Accessor)}
+ * 注册的手写访问器优先. Android上没有MethodHandle, 也无法在运行时生成类, 因此没有更快的反射后端;
+ * 需要完全避免反射时使用palette-compiler生成的LayoutBinder.
+ *
+ * @author zhulantian@gmail.com
+ */
+public final class Accessors {
+
+    /**
+     * 属性不存在时使用的访问器.
+     */
+    static final Accessor MISSING = new Accessor() {
+        @Override
+        public Object get(Object target) {
+            return null;
+        }
+    };
+
+    private static final Map<Class<?>, Map<String, Accessor>> sRegistered =
+            new ConcurrentHashMap<>();
+    private static final Map<Class<?>, Map<String, Accessor>> sAccessors =
+            new ConcurrentHashMap<>();
+
+    /**
+     * 注册表每次变化都会增加, 用于让表达式中缓存的访问器失效.
+     */
+    static int sGeneration;
+
+    private Accessors() {
+        // utility class
+    }
+
+    /**
+     * 注册一个手写的访问器, 它的优先级高于默认的Field访问器.
+     */
+    public static void register(Class<?> clazz, String fieldName, Accessor accessor) {
+        Map<String, Accessor> accessors = sRegistered.get(clazz);
+        if (accessors == null) {
+            accessors = new ConcurrentHashMap<>();
+            sRegistered.put(clazz, accessors);
+        }
+        accessors.put(fieldName, accessor);
+        invalidate();
+    }
+
+    /**
+     * @return clazz上fieldName的访问器, 属性不存在时返回{@link #MISSING}.
+     */
+    static Accessor get(Class<?> clazz, String fieldName) {
+        Map<String, Accessor> accessors = sAccessors.get(clazz);
+        if (accessors == null) {
+            accessors = new ConcurrentHashMap<>();
+            sAccessors.put(clazz, accessors);
+        }
+        Accessor accessor = accessors.get(fieldName);
+        if (accessor == null) {
+            Map<String, Accessor> registered = sRegistered.get(clazz);
+            accessor = registered == null ? null : registered.get(fieldName);
+            if (accessor == null) {
+                accessor = createFieldAccessor(clazz, fieldName);
+            }
+            if (accessor == null) {
+                accessor = MISSING;
+            }
+            accessors.put(fieldName, accessor);
+        }
+        return accessor;
+    }
+
+    /**
+     * @return 持有Field的访问器, 属性不存在时返回null.
+     */
+    private static Accessor createFieldAccessor(Class<?> clazz, String fieldName) {
+        final Field field = JavaCalls.findField(clazz, fieldName);
+        if (field == null) {
+            return null;
+        }
+        return new Accessor() {
+            @Override
+            public Object get(Object target) {
+                try {
+                    return field.get(target);
+                } catch (IllegalAccessException e) {
+                    return null;
+                }
+            }
+        };
+    }
+
+    private static void invalidate() {
+        sAccessors.clear();
+        sGeneration++;
+    }
+}
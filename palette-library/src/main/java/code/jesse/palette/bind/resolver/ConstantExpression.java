@@ -0,0 +1,25 @@
+package code.jesse.palette.bind.resolver;
+
+/**
+ * 静态文本表达式, 求值结果与Model无关.
+ *
+ * @author zhulantian@gmail.com
+ */
+public final class ConstantExpression implements Expression {
+
+    private final Object mValue;
+
+    public ConstantExpression(Object value) {
+        mValue = value;
+    }
+
+    @Override
+    public Object evaluate(Object model) {
+        return mValue;
+    }
+
+    @Override
+    public String toString() {
+        return String.valueOf(mValue);
+    }
+}
@@ -0,0 +1,18 @@
+package code.jesse.palette.bind.resolver;
+
+/**
+ * 具名数据源, 在表达式中以名字引用, eg: ${context.appName}, ${env.debug}.
+ * <p/>
+ * 注册到{@link DataSources}的对象如果实现了这个接口, 属性访问会调用{@link #get(String)},
+ * 否则按普通对象的字段访问.
+ *
+ * @author zhulantian@gmail.com
+ */
+public interface DataSource {
+
+    /**
+     * @param name 属性名.
+     * @return 属性值, 不存在时返回null.
+     */
+    Object get(String name);
+}
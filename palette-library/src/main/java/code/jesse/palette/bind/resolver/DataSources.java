@@ -0,0 +1,49 @@
+package code.jesse.palette.bind.resolver;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 表达式中可以引用的具名数据源.
+ * <p/>
+ * 内置了"env"(System properties, 其次是环境变量), 其它数据源例如"context"由应用注册.
+ * 数据源在求值时才查找, 因此可以在表达式编译之后再注册或者替换.
+ *
+ * @author zhulantian@gmail.com
+ */
+public final class DataSources {
+
+    public static final String ENV = "env";
+
+    private static final Map<String, Object> sSources = new ConcurrentHashMap<>();
+
+    static {
+        register(ENV, new DataSource() {
+            @Override
+            public Object get(String name) {
+                String value = System.getProperty(name);
+                return value != null ? value : System.getenv(name);
+            }
+        });
+    }
+
+    private DataSources() {
+        // utility class
+    }
+
+    /**
+     * @param name   表达式中使用的名字.
+     * @param source 数据源, 可以是{@link DataSource}或者任意对象.
+     */
+    public static void register(String name, Object source) {
+        sSources.put(name, source);
+    }
+
+    public static void unregister(String name) {
+        sSources.remove(name);
+    }
+
+    public static Object get(String name) {
+        return sSources.get(name);
+    }
+}
@@ -0,0 +1,19 @@
+package code.jesse.palette.bind.resolver;
+
+/**
+ * 预编译后的bindValue表达式, 由{@link ResolveUtils#compile(String)}生成.
+ * <p/>
+ * 表达式对象是不可变的, 同一个表达式字符串只会被解析一次, 之后所有使用这个表达式的View共享同一个对象.
+ *
+ * @author zhulantian@gmail.com
+ */
+public interface Expression {
+
+    /**
+     * 针对Model求值.
+     *
+     * @param model 数据源Model.
+     * @return 表达式的值.
+     */
+    Object evaluate(Object model);
+}
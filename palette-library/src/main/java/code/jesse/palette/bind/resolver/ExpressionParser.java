@@ -0,0 +1,396 @@
+package code.jesse.palette.bind.resolver;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import code.jesse.palette.bind.resolver.Nodes.Node;
+
+/**
+ * bindValue的解析器, 把bindValue编译成{@link Expression}.
+ * <p/>
+ * 支持的形式:
+ * <pre>
+ * 静态文本:     hello, mvp!
+ * 属性路径:     ${.user.name}, ${.images[0].url}
+ * 表达式:       ${.age > 0 ? .age : 0}, ${substring(.title, 0, 10)}, ${'@' + .user.name}
+ * 数据源:       ${context.appName}, ${env.debug}, ${model.title}
+ * 文本模板:     Hello ${.user.name}!
+ * </pre>
+ * 运算符优先级由低到高: ?:, ||, &&, == !=, < <= > >=, + -, * / %, ! -(一元), . [] ().
+ * 以'.'开头的路径以及model都表示当前Model, 其它标识符是{@link DataSources}中的数据源, 标识符后跟括号则是
+ * {@link Functions}中的函数调用.
+ * <p/>
+ * 纯属性路径会直接编译为{@link PathExpression}, 其它表达式编译为{@link Nodes}中的节点树.
+ *
+ * @author zhulantian@gmail.com
+ */
+final class ExpressionParser {
+
+    private static final String OPEN = "${";
+    private static final char CLOSE = '}';
+
+    private final String mSource;
+    private final int mEnd;
+    private int mPos;
+
+    private ExpressionParser(String source, int start, int end) {
+        mSource = source;
+        mPos = start;
+        mEnd = end;
+    }
+
+    static Expression parse(String bindValue) {
+        int open = bindValue.indexOf(OPEN);
+        if (open == -1) {
+            return new ConstantExpression(bindValue);
+        }
+        if (open == 0 && findClose(bindValue, OPEN.length()) == bindValue.length() - 1) {
+            int start = OPEN.length();
+            int end = bindValue.length() - 1;
+            if (isSimplePath(bindValue, start, end)) {
+                return PathExpression.compile(bindValue.substring(start + 1, end));
+            }
+            return parseExpression(bindValue, start, end);
+        }
+
+        // 文本模板
+        List<Node> parts = new ArrayList<>();
+        int pos = 0;
+        while (open != -1) {
+            if (open > pos) {
+                parts.add(Nodes.constant(bindValue.substring(pos, open)));
+            }
+            int close = findClose(bindValue, open + OPEN.length());
+            if (close == -1) {
+                throw error(bindValue, open, "unclosed '${'");
+            }
+            parts.add(parseExpression(bindValue, open + OPEN.length(), close));
+            pos = close + 1;
+            open = bindValue.indexOf(OPEN, pos);
+        }
+        if (pos < bindValue.length()) {
+            parts.add(Nodes.constant(bindValue.substring(pos)));
+        }
+        Node template = Nodes.template(parts.toArray(new Node[parts.size()]));
+        return template.isConstant() ? new ConstantExpression(template.evaluate(null)) : template;
+    }
+
+    private static Node parseExpression(String source, int start, int end) {
+        ExpressionParser parser = new ExpressionParser(source, start, end);
+        Node node = parser.ternary();
+        parser.skipWhitespace();
+        if (parser.mPos != end) {
+            throw parser.error("unexpected '" + source.charAt(parser.mPos) + "'");
+        }
+        return node;
+    }
+
+    /**
+     * @return 与"${"匹配的'}'的位置, 跳过字符串常量中的'}', 没有时返回-1.
+     */
+    private static int findClose(String source, int from) {
+        char quote = 0;
+        for (int i = from; i < source.length(); ++i) {
+            char c = source.charAt(i);
+            if (quote != 0) {
+                if (c == '\\') {
+                    i++;
+                } else if (c == quote) {
+                    quote = 0;
+                }
+            } else if (c == '\'' || c == '"') {
+                quote = c;
+            } else if (c == CLOSE) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 是否是".a.b[2].c"形式的纯属性路径.
+     */
+    private static boolean isSimplePath(String source, int start, int end) {
+        if (end - start < 2 || source.charAt(start) != '.') {
+            return false;
+        }
+        boolean inIndex = false;
+        for (int i = start + 1; i < end; ++i) {
+            char c = source.charAt(i);
+            if (inIndex) {
+                if (c == ']') {
+                    inIndex = false;
+                } else if (c < '0' || c > '9') {
+                    return false;
+                }
+            } else if (c == '[') {
+                inIndex = true;
+            } else if (c != '.' && !Character.isJavaIdentifierPart(c)) {
+                return false;
+            }
+        }
+        return !inIndex;
+    }
+
+    // ---------------- grammar ----------------
+
+    private Node ternary() {
+        Node condition = or();
+        if (match("?")) {
+            Node whenTrue = ternary();
+            expect(":");
+            Node whenFalse = ternary();
+            return Nodes.conditional(condition, whenTrue, whenFalse);
+        }
+        return condition;
+    }
+
+    private Node or() {
+        Node node = and();
+        while (match("||")) {
+            node = Nodes.binary(Nodes.OP_OR, node, and());
+        }
+        return node;
+    }
+
+    private Node and() {
+        Node node = equality();
+        while (match("&&")) {
+            node = Nodes.binary(Nodes.OP_AND, node, equality());
+        }
+        return node;
+    }
+
+    private Node equality() {
+        Node node = relational();
+        while (true) {
+            if (match("==")) {
+                node = Nodes.binary(Nodes.OP_EQ, node, relational());
+            } else if (match("!=")) {
+                node = Nodes.binary(Nodes.OP_NE, node, relational());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private Node relational() {
+        Node node = additive();
+        while (true) {
+            if (match("<=")) {
+                node = Nodes.binary(Nodes.OP_LE, node, additive());
+            } else if (match(">=")) {
+                node = Nodes.binary(Nodes.OP_GE, node, additive());
+            } else if (match("<")) {
+                node = Nodes.binary(Nodes.OP_LT, node, additive());
+            } else if (match(">")) {
+                node = Nodes.binary(Nodes.OP_GT, node, additive());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private Node additive() {
+        Node node = multiplicative();
+        while (true) {
+            if (match("+")) {
+                node = Nodes.binary(Nodes.OP_ADD, node, multiplicative());
+            } else if (match("-")) {
+                node = Nodes.binary(Nodes.OP_SUB, node, multiplicative());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private Node multiplicative() {
+        Node node = unary();
+        while (true) {
+            if (match("*")) {
+                node = Nodes.binary(Nodes.OP_MUL, node, unary());
+            } else if (match("/")) {
+                node = Nodes.binary(Nodes.OP_DIV, node, unary());
+            } else if (match("%")) {
+                node = Nodes.binary(Nodes.OP_MOD, node, unary());
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private Node unary() {
+        if (match("!")) {
+            return Nodes.not(unary());
+        }
+        if (match("-")) {
+            return Nodes.negative(unary());
+        }
+        return postfix(primary());
+    }
+
+    private Node postfix(Node node) {
+        while (true) {
+            if (match(".")) {
+                node = Nodes.member(node, identifier());
+            } else if (match("[")) {
+                Node index = ternary();
+                expect("]");
+                node = Nodes.index(node, index);
+            } else {
+                return node;
+            }
+        }
+    }
+
+    private Node primary() {
+        skipWhitespace();
+        if (mPos >= mEnd) {
+            throw error("unexpected end");
+        }
+        char c = mSource.charAt(mPos);
+        if (c == '(') {
+            mPos++;
+            Node node = ternary();
+            expect(")");
+            return node;
+        }
+        if (c == '\'' || c == '"') {
+            return Nodes.constant(string(c));
+        }
+        if (c >= '0' && c <= '9') {
+            return Nodes.constant(number());
+        }
+        if (c == '.') { // 以'.'开头的路径, 相对于Model
+            return Nodes.model();
+        }
+        String name = identifier();
+        switch (name) {
+            case "true":
+                return Nodes.constant(Boolean.TRUE);
+            case "false":
+                return Nodes.constant(Boolean.FALSE);
+            case "null":
+                return Nodes.constant(null);
+            case "model":
+                return Nodes.model();
+            default:
+                break;
+        }
+        if (match("(")) {
+            Function function = Functions.get(name);
+            if (function == null) {
+                throw error("unknown function '" + name + "'");
+            }
+            List<Node> args = new ArrayList<>();
+            if (!match(")")) {
+                do {
+                    args.add(ternary());
+                } while (match(","));
+                expect(")");
+            }
+            String argsError = Functions.checkArgs(name, args.size());
+            if (argsError != null) {
+                throw error(argsError);
+            }
+            return Nodes.call(name, function, args.toArray(new Node[args.size()]));
+        }
+        return Nodes.source(name);
+    }
+
+    private String identifier() {
+        skipWhitespace();
+        int start = mPos;
+        while (mPos < mEnd && Character.isJavaIdentifierPart(mSource.charAt(mPos))) {
+            mPos++;
+        }
+        if (start == mPos || !Character.isJavaIdentifierStart(mSource.charAt(start))) {
+            throw error("identifier expected");
+        }
+        return mSource.substring(start, mPos);
+    }
+
+    private Object number() {
+        int start = mPos;
+        boolean decimal = false;
+        while (mPos < mEnd) {
+            char c = mSource.charAt(mPos);
+            if (c == '.' && !decimal && mPos + 1 < mEnd
+                    && Character.isDigit(mSource.charAt(mPos + 1))) {
+                decimal = true;
+            } else if (!Character.isDigit(c)) {
+                break;
+            }
+            mPos++;
+        }
+        String text = mSource.substring(start, mPos);
+        if (decimal) {
+            return Double.parseDouble(text);
+        }
+        if (mPos < mEnd && (mSource.charAt(mPos) == 'L' || mSource.charAt(mPos) == 'l')) {
+            mPos++;
+            return Long.parseLong(text);
+        }
+        long value = Long.parseLong(text);
+        return value == (int) value ? (Object) (int) value : (Object) value;
+    }
+
+    private String string(char quote) {
+        StringBuilder builder = new StringBuilder();
+        mPos++;
+        while (mPos < mEnd) {
+            char c = mSource.charAt(mPos++);
+            if (c == quote) {
+                return builder.toString();
+            }
+            if (c == '\\' && mPos < mEnd) {
+                c = mSource.charAt(mPos++);
+                if (c == 'n') {
+                    c = '\n';
+                } else if (c == 't') {
+                    c = '\t';
+                }
+            }
+            builder.append(c);
+        }
+        throw error("unclosed string");
+    }
+
+    private void skipWhitespace() {
+        while (mPos < mEnd && Character.isWhitespace(mSource.charAt(mPos))) {
+            mPos++;
+        }
+    }
+
+    private boolean match(String token) {
+        skipWhitespace();
+        if (!mSource.startsWith(token, mPos) || mPos + token.length() > mEnd) {
+            return false;
+        }
+        // 避免把"=="、"&&"等的一部分当作单字符运算符
+        if (token.length() == 1 && mPos + 1 < mEnd) {
+            char next = mSource.charAt(mPos + 1);
+            char c = token.charAt(0);
+            if ((c == '!' || c == '<' || c == '>') && next == '=') {
+                return false;
+            }
+        }
+        mPos += token.length();
+        return true;
+    }
+
+    private void expect(String token) {
+        if (!match(token)) {
+            throw error("'" + token + "' expected");
+        }
+    }
+
+    private IllegalArgumentException error(String message) {
+        return error(mSource, mPos, message);
+    }
+
+    private static IllegalArgumentException error(String source, int pos, String message) {
+        return new IllegalArgumentException("Illegal bindValue '" + source + "' at " + pos
+                + ": " + message);
+    }
+}
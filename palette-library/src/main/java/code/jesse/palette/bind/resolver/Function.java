@@ -0,0 +1,33 @@
+package code.jesse.palette.bind.resolver;
+
+/**
+ * 可以在bindValue表达式中调用的函数, eg: ${substring(.title, 0, 10)}.
+ * <p/>
+ * 函数必须是纯函数: 没有副作用, 结果只取决于参数. 参数都是常量的调用会在编译表达式时直接求值(常量折叠).
+ * <p/>
+ * 不超过3个参数的调用使用对应参数数目的apply, 求值时不创建参数数组; 默认实现把参数包装为数组调用
+ * {@link #apply(Object[])}, 在绑定热路径上使用的函数应覆盖它们.
+ *
+ * @author zhulantian@gmail.com
+ * @see Functions
+ */
+public abstract class Function {
+
+    /**
+     * @param args 参数, 数目已经在编译表达式时按注册的范围检查过.
+     * @return 函数值.
+     */
+    public abstract Object apply(Object[] args);
+
+    public Object apply(Object arg) {
+        return apply(new Object[]{arg});
+    }
+
+    public Object apply(Object arg0, Object arg1) {
+        return apply(new Object[]{arg0, arg1});
+    }
+
+    public Object apply(Object arg0, Object arg1, Object arg2) {
+        return apply(new Object[]{arg0, arg1, arg2});
+    }
+}
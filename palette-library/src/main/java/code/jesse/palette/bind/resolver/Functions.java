@@ -0,0 +1,206 @@
+package code.jesse.palette.bind.resolver;
+
+import java.lang.reflect.Array;
+import java.util.Collection;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 表达式中可以调用的函数的注册表.
+ * <p/>
+ * 函数在编译表达式时按名字查找, 参数数目也在编译时检查, 因此需要在使用它的layout第一次绑定之前注册.
+ * 内置函数: substring, length, isEmpty, upper, lower, trim, str, abs, max, min.
+ *
+ * @author zhulantian@gmail.com
+ */
+public final class Functions {
+
+    private static final Map<String, Entry> sFunctions = new ConcurrentHashMap<>();
+
+    static {
+        register("substring", 2, 3, new Function() {
+            @Override
+            public Object apply(Object[] args) {
+                return args.length > 2 ? apply(args[0], args[1], args[2]) : apply(args[0], args[1]);
+            }
+
+            @Override
+            public Object apply(Object text, Object start) {
+                return substring(text, start, null);
+            }
+
+            @Override
+            public Object apply(Object text, Object start, Object end) {
+                return substring(text, start, end);
+            }
+        });
+        register("length", 1, 1, new UnaryFunction() {
+            @Override
+            public Object apply(Object value) {
+                return length(value);
+            }
+        });
+        register("isEmpty", 1, 1, new UnaryFunction() {
+            @Override
+            public Object apply(Object value) {
+                return length(value) == 0;
+            }
+        });
+        register("upper", 1, 1, new UnaryFunction() {
+            @Override
+            public Object apply(Object value) {
+                return value == null ? null : value.toString().toUpperCase(Locale.getDefault());
+            }
+        });
+        register("lower", 1, 1, new UnaryFunction() {
+            @Override
+            public Object apply(Object value) {
+                return value == null ? null : value.toString().toLowerCase(Locale.getDefault());
+            }
+        });
+        register("trim", 1, 1, new UnaryFunction() {
+            @Override
+            public Object apply(Object value) {
+                return value == null ? null : value.toString().trim();
+            }
+        });
+        register("str", 1, 1, new UnaryFunction() {
+            @Override
+            public Object apply(Object value) {
+                return value == null ? "" : value.toString();
+            }
+        });
+        register("abs", 1, 1, new UnaryFunction() {
+            @Override
+            public Object apply(Object value) {
+                return Nodes.compare(value, 0) < 0 ? Nodes.negate(value) : value;
+            }
+        });
+        register("max", 2, 2, new BinaryFunction() {
+            @Override
+            public Object apply(Object left, Object right) {
+                return Nodes.compare(left, right) >= 0 ? left : right;
+            }
+        });
+        register("min", 2, 2, new BinaryFunction() {
+            @Override
+            public Object apply(Object left, Object right) {
+                return Nodes.compare(left, right) <= 0 ? left : right;
+            }
+        });
+    }
+
+    private Functions() {
+        // utility class
+    }
+
+    /**
+     * 注册函数, 同名函数会被覆盖, 不限制参数数目. 函数必须是纯函数, 参见{@link Function}.
+     */
+    public static void register(String name, Function function) {
+        register(name, 0, Integer.MAX_VALUE, function);
+    }
+
+    /**
+     * 注册函数, 同名函数会被覆盖. 函数必须是纯函数, 参见{@link Function}.
+     *
+     * @param minArgs 最少的参数数目.
+     * @param maxArgs 最多的参数数目.
+     */
+    public static void register(String name, int minArgs, int maxArgs, Function function) {
+        sFunctions.put(name, new Entry(function, minArgs, maxArgs));
+    }
+
+    public static Function get(String name) {
+        Entry entry = sFunctions.get(name);
+        return entry == null ? null : entry.function;
+    }
+
+    /**
+     * @return 参数数目不符合时的错误信息, 符合时返回null.
+     */
+    static String checkArgs(String name, int count) {
+        Entry entry = sFunctions.get(name);
+        if (entry == null || (count >= entry.minArgs && count <= entry.maxArgs)) {
+            return null;
+        }
+        return name + "() takes " + entry.minArgs
+                + (entry.minArgs == entry.maxArgs ? "" : " to " + entry.maxArgs)
+                + " arguments, but got " + count;
+    }
+
+    /**
+     * @param end 为null时截取到末尾.
+     */
+    private static CharSequence substring(Object value, Object start, Object end) {
+        if (!(value instanceof CharSequence)) {
+            return null;
+        }
+        CharSequence text = (CharSequence) value;
+        int from = clamp(toInt(start), text.length());
+        int to = end == null ? text.length() : clamp(toInt(end), text.length());
+        return from >= to ? "" : text.subSequence(from, to);
+    }
+
+    private static int toInt(Object value) {
+        return value instanceof Number ? ((Number) value).intValue() : 0;
+    }
+
+    private static int clamp(int index, int length) {
+        return index < 0 ? 0 : index > length ? length : index;
+    }
+
+    private static int length(Object value) {
+        if (value == null) {
+            return 0;
+        } else if (value instanceof CharSequence) {
+            return ((CharSequence) value).length();
+        } else if (value instanceof Collection) {
+            return ((Collection<?>) value).size();
+        } else if (value instanceof Map) {
+            return ((Map<?, ?>) value).size();
+        } else if (value.getClass().isArray()) {
+            return Array.getLength(value);
+        }
+        return 0;
+    }
+
+    /**
+     * 只有一个参数的内置函数.
+     */
+    private abstract static class UnaryFunction extends Function {
+        @Override
+        public final Object apply(Object[] args) {
+            return apply(args[0]);
+        }
+
+        @Override
+        public abstract Object apply(Object arg);
+    }
+
+    /**
+     * 有两个参数的内置函数.
+     */
+    private abstract static class BinaryFunction extends Function {
+        @Override
+        public final Object apply(Object[] args) {
+            return apply(args[0], args[1]);
+        }
+
+        @Override
+        public abstract Object apply(Object arg0, Object arg1);
+    }
+
+    private static final class Entry {
+        final Function function;
+        final int minArgs;
+        final int maxArgs;
+
+        Entry(Function function, int minArgs, int maxArgs) {
+            this.function = function;
+            this.minArgs = minArgs;
+            this.maxArgs = maxArgs;
+        }
+    }
+}
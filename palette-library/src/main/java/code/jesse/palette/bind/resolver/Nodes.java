@@ -0,0 +1,556 @@
+package code.jesse.palette.bind.resolver;
+
+import java.util.Map;
+
+/**
+ * 表达式语法树的节点, 同时也是树遍历求值器.
+ * <p/>
+ * 节点通过这里的工厂方法创建, 子节点都是常量的节点在创建时就被求值并替换为常量(常量折叠).
+ * 属性访问、比较、逻辑运算和三元运算求值时不分配内存; 算术运算的结果需要装箱, 字符串拼接需要创建新字符串,
+ * 超过3个参数的函数调用每次创建参数数组. 节点创建之后不再修改, 因此同一个表达式可以在多个线程间共享.
+ *
+ * @author zhulantian@gmail.com
+ */
+final class Nodes {
+
+    static final int OP_ADD = 0;
+    static final int OP_SUB = 1;
+    static final int OP_MUL = 2;
+    static final int OP_DIV = 3;
+    static final int OP_MOD = 4;
+    static final int OP_EQ = 5;
+    static final int OP_NE = 6;
+    static final int OP_LT = 7;
+    static final int OP_LE = 8;
+    static final int OP_GT = 9;
+    static final int OP_GE = 10;
+    static final int OP_AND = 11;
+    static final int OP_OR = 12;
+
+    /**
+     * {@link #compare(Object, Object)}无法比较时的返回值.
+     */
+    static final int INCOMPARABLE = Integer.MIN_VALUE;
+
+    private Nodes() {
+        // utility class
+    }
+
+    abstract static class Node implements Expression {
+
+        boolean isConstant() {
+            return false;
+        }
+    }
+
+    // ---------------- factories ----------------
+
+    static Node constant(Object value) {
+        return new Constant(value);
+    }
+
+    static Node model() {
+        return Model.INSTANCE;
+    }
+
+    static Node source(String name) {
+        return new Source(name);
+    }
+
+    static Node member(Node target, String name) {
+        return new Member(target, name);
+    }
+
+    static Node index(Node target, Node index) {
+        return fold(new Index(target, index), target, index);
+    }
+
+    static Node call(String name, Function function, Node[] args) {
+        Node node;
+        switch (args.length) {
+            case 1:
+                node = new Call1(name, function, args[0]);
+                break;
+            case 2:
+                node = new Call2(name, function, args[0], args[1]);
+                break;
+            case 3:
+                node = new Call3(name, function, args[0], args[1], args[2]);
+                break;
+            default:
+                node = new Call(name, function, args);
+                break;
+        }
+        return fold(node, args);
+    }
+
+    static Node not(Node operand) {
+        return fold(new Not(operand), operand);
+    }
+
+    static Node negative(Node operand) {
+        return fold(new Negative(operand), operand);
+    }
+
+    static Node binary(int op, Node left, Node right) {
+        if (op == OP_AND || op == OP_OR) {
+            if (left.isConstant()) { // 短路
+                boolean value = truthy(left.evaluate(null));
+                if (op == OP_AND ? !value : value) {
+                    return constant(value);
+                }
+                return right.isConstant() ? constant(truthy(right.evaluate(null))) : not(not(right));
+            }
+            return fold(new Logical(op, left, right), left, right);
+        }
+        return fold(new Binary(op, left, right), left, right);
+    }
+
+    static Node conditional(Node condition, Node whenTrue, Node whenFalse) {
+        if (condition.isConstant()) {
+            return truthy(condition.evaluate(null)) ? whenTrue : whenFalse;
+        }
+        return new Conditional(condition, whenTrue, whenFalse);
+    }
+
+    static Node template(Node[] parts) {
+        return fold(new Template(parts), parts);
+    }
+
+    private static Node fold(Node node, Node... children) {
+        for (Node child : children) {
+            if (!child.isConstant()) {
+                return node;
+            }
+        }
+        return constant(node.evaluate(null));
+    }
+
+    // ---------------- values ----------------
+
+    static boolean truthy(Object value) {
+        if (value == null) {
+            return false;
+        } else if (value instanceof Boolean) {
+            return (Boolean) value;
+        } else if (value instanceof Number) {
+            return ((Number) value).doubleValue() != 0;
+        } else if (value instanceof CharSequence) {
+            return ((CharSequence) value).length() != 0;
+        }
+        return true;
+    }
+
+    private static boolean isIntegral(Object value) {
+        return value instanceof Integer || value instanceof Long
+                || value instanceof Short || value instanceof Byte;
+    }
+
+    /**
+     * @return 负数/0/正数, 无法比较时返回{@link #INCOMPARABLE}.
+     */
+    @SuppressWarnings("unchecked")
+    static int compare(Object a, Object b) {
+        if (a instanceof Number && b instanceof Number) {
+            if (isIntegral(a) && isIntegral(b)) {
+                long x = ((Number) a).longValue();
+                long y = ((Number) b).longValue();
+                return x < y ? -1 : (x == y ? 0 : 1);
+            }
+            return Double.compare(((Number) a).doubleValue(), ((Number) b).doubleValue());
+        }
+        if (a instanceof Comparable && b != null && a.getClass() == b.getClass()) {
+            return ((Comparable<Object>) a).compareTo(b);
+        }
+        return INCOMPARABLE;
+    }
+
+    static boolean equal(Object a, Object b) {
+        if (a == b) {
+            return true;
+        }
+        if (a == null || b == null) {
+            return false;
+        }
+        if (a instanceof Number && b instanceof Number) {
+            return compare(a, b) == 0;
+        }
+        return a.equals(b);
+    }
+
+    static Object negate(Object value) {
+        if (value instanceof Integer) {
+            return -(Integer) value;
+        } else if (isIntegral(value)) {
+            return -((Number) value).longValue();
+        } else if (value instanceof Number) {
+            return -((Number) value).doubleValue();
+        }
+        return null;
+    }
+
+    static Object arithmetic(int op, Object a, Object b) {
+        if (op == OP_ADD && (a instanceof CharSequence || b instanceof CharSequence)) {
+            return (a == null ? "" : a.toString()) + (b == null ? "" : b.toString());
+        }
+        if (!(a instanceof Number) || !(b instanceof Number)) {
+            return null;
+        }
+        if (isIntegral(a) && isIntegral(b)) {
+            long x = ((Number) a).longValue();
+            long y = ((Number) b).longValue();
+            long result;
+            switch (op) {
+                case OP_ADD:
+                    result = x + y;
+                    break;
+                case OP_SUB:
+                    result = x - y;
+                    break;
+                case OP_MUL:
+                    result = x * y;
+                    break;
+                case OP_DIV:
+                    if (y == 0) {
+                        return null;
+                    }
+                    result = x / y;
+                    break;
+                default:
+                    if (y == 0) {
+                        return null;
+                    }
+                    result = x % y;
+                    break;
+            }
+            if (a instanceof Long || b instanceof Long || result != (int) result) {
+                return result;
+            }
+            return (int) result;
+        }
+        double x = ((Number) a).doubleValue();
+        double y = ((Number) b).doubleValue();
+        switch (op) {
+            case OP_ADD:
+                return x + y;
+            case OP_SUB:
+                return x - y;
+            case OP_MUL:
+                return x * y;
+            case OP_DIV:
+                return x / y;
+            default:
+                return x % y;
+        }
+    }
+
+    // ---------------- nodes ----------------
+
+    private static final class Constant extends Node {
+        private final Object mValue;
+
+        Constant(Object value) {
+            mValue = value;
+        }
+
+        @Override
+        boolean isConstant() {
+            return true;
+        }
+
+        @Override
+        public Object evaluate(Object model) {
+            return mValue;
+        }
+    }
+
+    private static final class Model extends Node {
+        static final Model INSTANCE = new Model();
+
+        @Override
+        public Object evaluate(Object model) {
+            return model;
+        }
+    }
+
+    private static final class Source extends Node {
+        private final String mName;
+
+        Source(String name) {
+            mName = name;
+        }
+
+        @Override
+        public Object evaluate(Object model) {
+            return DataSources.get(mName);
+        }
+    }
+
+    private static final class Member extends Node {
+        private final Node mTarget;
+        private final AccessorSlot mSlot;
+
+        Member(Node target, String name) {
+            mTarget = target;
+            mSlot = new AccessorSlot(name);
+        }
+
+        @Override
+        public Object evaluate(Object model) {
+            Object target = mTarget.evaluate(model);
+            if (target == null) {
+                return null;
+            }
+            if (target instanceof DataSource) {
+                return ((DataSource) target).get(mSlot.getFieldName());
+            }
+            return mSlot.get(target);
+        }
+    }
+
+    private static final class Index extends Node {
+        private final Node mTarget;
+        private final Node mIndex;
+
+        Index(Node target, Node index) {
+            mTarget = target;
+            mIndex = index;
+        }
+
+        @Override
+        public Object evaluate(Object model) {
+            Object target = mTarget.evaluate(model);
+            if (target == null) {
+                return null;
+            }
+            Object index = mIndex.evaluate(model);
+            if (target instanceof Map) {
+                return ((Map<?, ?>) target).get(index);
+            }
+            if (!(index instanceof Number)) {
+                return null;
+            }
+            return ResolveUtils.getElement(target, ((Number) index).intValue(), "[]");
+        }
+    }
+
+    private static final class Call extends Node {
+        private final String mName;
+        private final Function mFunction;
+        private final Node[] mArgs;
+
+        Call(String name, Function function, Node[] args) {
+            mName = name;
+            mFunction = function;
+            mArgs = args;
+        }
+
+        @Override
+        public Object evaluate(Object model) {
+            Object[] values = new Object[mArgs.length];
+            for (int i = 0; i < mArgs.length; ++i) {
+                values[i] = mArgs[i].evaluate(model);
+            }
+            return mFunction.apply(values);
+        }
+
+        @Override
+        public String toString() {
+            return mName + "()";
+        }
+    }
+
+    private static final class Call1 extends Node {
+        private final String mName;
+        private final Function mFunction;
+        private final Node mArg;
+
+        Call1(String name, Function function, Node arg) {
+            mName = name;
+            mFunction = function;
+            mArg = arg;
+        }
+
+        @Override
+        public Object evaluate(Object model) {
+            return mFunction.apply(mArg.evaluate(model));
+        }
+
+        @Override
+        public String toString() {
+            return mName + "()";
+        }
+    }
+
+    private static final class Call2 extends Node {
+        private final String mName;
+        private final Function mFunction;
+        private final Node mArg0;
+        private final Node mArg1;
+
+        Call2(String name, Function function, Node arg0, Node arg1) {
+            mName = name;
+            mFunction = function;
+            mArg0 = arg0;
+            mArg1 = arg1;
+        }
+
+        @Override
+        public Object evaluate(Object model) {
+            return mFunction.apply(mArg0.evaluate(model), mArg1.evaluate(model));
+        }
+
+        @Override
+        public String toString() {
+            return mName + "()";
+        }
+    }
+
+    private static final class Call3 extends Node {
+        private final String mName;
+        private final Function mFunction;
+        private final Node mArg0;
+        private final Node mArg1;
+        private final Node mArg2;
+
+        Call3(String name, Function function, Node arg0, Node arg1, Node arg2) {
+            mName = name;
+            mFunction = function;
+            mArg0 = arg0;
+            mArg1 = arg1;
+            mArg2 = arg2;
+        }
+
+        @Override
+        public Object evaluate(Object model) {
+            return mFunction.apply(mArg0.evaluate(model), mArg1.evaluate(model),
+                    mArg2.evaluate(model));
+        }
+
+        @Override
+        public String toString() {
+            return mName + "()";
+        }
+    }
+
+    private static final class Not extends Node {
+        private final Node mOperand;
+
+        Not(Node operand) {
+            mOperand = operand;
+        }
+
+        @Override
+        public Object evaluate(Object model) {
+            return !truthy(mOperand.evaluate(model));
+        }
+    }
+
+    private static final class Negative extends Node {
+        private final Node mOperand;
+
+        Negative(Node operand) {
+            mOperand = operand;
+        }
+
+        @Override
+        public Object evaluate(Object model) {
+            return negate(mOperand.evaluate(model));
+        }
+    }
+
+    private static final class Binary extends Node {
+        private final int mOp;
+        private final Node mLeft;
+        private final Node mRight;
+
+        Binary(int op, Node left, Node right) {
+            mOp = op;
+            mLeft = left;
+            mRight = right;
+        }
+
+        @Override
+        public Object evaluate(Object model) {
+            Object a = mLeft.evaluate(model);
+            Object b = mRight.evaluate(model);
+            switch (mOp) {
+                case OP_EQ:
+                    return equal(a, b);
+                case OP_NE:
+                    return !equal(a, b);
+                case OP_LT:
+                case OP_LE:
+                case OP_GT:
+                case OP_GE:
+                    int result = compare(a, b);
+                    if (result == INCOMPARABLE) {
+                        return Boolean.FALSE;
+                    }
+                    return mOp == OP_LT ? result < 0 : mOp == OP_LE ? result <= 0
+                            : mOp == OP_GT ? result > 0 : result >= 0;
+                default:
+                    return arithmetic(mOp, a, b);
+            }
+        }
+    }
+
+    private static final class Logical extends Node {
+        private final boolean mAnd;
+        private final Node mLeft;
+        private final Node mRight;
+
+        Logical(int op, Node left, Node right) {
+            mAnd = op == OP_AND;
+            mLeft = left;
+            mRight = right;
+        }
+
+        @Override
+        public Object evaluate(Object model) {
+            boolean left = truthy(mLeft.evaluate(model));
+            if (mAnd ? !left : left) {
+                return left;
+            }
+            return truthy(mRight.evaluate(model));
+        }
+    }
+
+    private static final class Conditional extends Node {
+        private final Node mCondition;
+        private final Node mWhenTrue;
+        private final Node mWhenFalse;
+
+        Conditional(Node condition, Node whenTrue, Node whenFalse) {
+            mCondition = condition;
+            mWhenTrue = whenTrue;
+            mWhenFalse = whenFalse;
+        }
+
+        @Override
+        public Object evaluate(Object model) {
+            return truthy(mCondition.evaluate(model))
+                    ? mWhenTrue.evaluate(model) : mWhenFalse.evaluate(model);
+        }
+    }
+
+    private static final class Template extends Node {
+        private final Node[] mParts;
+
+        Template(Node[] parts) {
+            mParts = parts;
+        }
+
+        @Override
+        public Object evaluate(Object model) {
+            StringBuilder builder = new StringBuilder();
+            for (Node part : mParts) {
+                Object value = part.evaluate(model);
+                if (value != null) {
+                    builder.append(value);
+                }
+            }
+            return builder.toString();
+        }
+    }
+}
@@ -0,0 +1,81 @@
+package code.jesse.palette.bind.resolver;
+
+/**
+ * 属性路径表达式, 例如"a.b[2].c"会被编译为 a -> b[2] -> c 三段访问链.
+ * <p/>
+ * 路径只在{@link #compile(String)}时解析一次, 求值时只是顺序执行访问链, 不再做任何字符串处理.
+ * 每一段都缓存了最近一次使用的(Class, {@link Accessor}), 同一个Model类型反复求值时不需要再查找访问器.
+ *
+ * @author zhulantian@gmail.com
+ */
+public final class PathExpression implements Expression {
+
+    private static final int NO_INDEX = -1;
+
+    private final String mPath;
+    private final AccessorSlot[] mFields;
+    private final int[] mIndexes;
+
+    private PathExpression(String path, String[] fields, int[] indexes) {
+        mPath = path;
+        mFields = new AccessorSlot[fields.length];
+        for (int i = 0; i < fields.length; ++i) {
+            mFields[i] = new AccessorSlot(fields[i]);
+        }
+        mIndexes = indexes;
+    }
+
+    /**
+     * 编译属性路径.
+     *
+     * @param path 属性路径, 不包含"${."前缀和"}"后缀, eg: a.b[2].c
+     * @return 编译后的路径表达式.
+     */
+    public static PathExpression compile(String path) {
+        int count = 1;
+        for (int i = 0; i < path.length(); ++i) {
+            if (path.charAt(i) == '.') {
+                count++;
+            }
+        }
+        String[] fields = new String[count];
+        int[] indexes = new int[count];
+        int start = 0;
+        for (int i = 0; i < count; ++i) {
+            int end = path.indexOf('.', start);
+            if (end == -1) {
+                end = path.length();
+            }
+            String field = path.substring(start, end);
+            int bracket = field.indexOf('[');
+            if (bracket != -1 && field.endsWith("]")) { // 处理集合类型
+                fields[i] = field.substring(0, bracket);
+                indexes[i] = Integer.parseInt(field.substring(bracket + 1, field.indexOf(']')));
+            } else {
+                fields[i] = field;
+                indexes[i] = NO_INDEX;
+            }
+            start = end + 1;
+        }
+        return new PathExpression(path, fields, indexes);
+    }
+
+    @Override
+    public Object evaluate(Object model) {
+        Object parentObject = model;
+        for (int i = 0; i < mFields.length && parentObject != null; ++i) {
+            Object fieldValue = mFields[i].get(parentObject);
+            if (mIndexes[i] != NO_INDEX) {
+                parentObject = ResolveUtils.getElement(fieldValue, mIndexes[i], mPath);
+            } else {
+                parentObject = fieldValue;
+            }
+        }
+        return parentObject;
+    }
+
+    @Override
+    public String toString() {
+        return mPath;
+    }
+}
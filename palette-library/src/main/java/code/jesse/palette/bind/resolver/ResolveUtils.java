@@ -1,64 +1,140 @@
 package code.jesse.palette.bind.resolver;
 
 
-import java.util.List;
+import android.support.v4.util.LruCache;
+import android.util.Log;
 
-import code.jesse.palette.tools.JavaCalls;
+import java.util.List;
 
 /**
  * @author zhulantian@gmail.com
  */
 public class ResolveUtils {
 
+    private static final String LOG_TAG = "ResolveUtils";
+
+    private static final String PREFIX = "${.";
+    private static final String SUFFIX = "}";
+
+    /**
+     * 编译结果缓存的最大条数, 一般远大于一个应用中不同bindValue的数目.
+     */
+    private static final int MAX_CACHED_EXPRESSIONS = 512;
+
+    private static final LruCache<String, Expression> sExpressions =
+            new LruCache<String, Expression>(MAX_CACHED_EXPRESSIONS) {
+                @Override
+                protected Expression create(String bindValue) {
+                    return compileInternal(bindValue);
+                }
+            };
+
     private ResolveUtils() {
         // utility class
     }
 
+    /**
+     * 编译bindValue, 结果会被缓存, 同一个bindValue只会被解析一次.
+     *
+     * @param bindValue XML中声明的bindValue, eg: ${.user.name}, 语法参见{@link ExpressionParser}.
+     *                  有语法错误时作为静态文本处理.
+     * @return 编译后的表达式.
+     */
+    public static Expression compile(String bindValue) {
+        return sExpressions.get(bindValue);
+    }
+
+    private static Expression compileInternal(String bindValue) {
+        try {
+            return ExpressionParser.parse(bindValue);
+        } catch (IllegalArgumentException e) {
+            // 与引入表达式之前一致, 无法解析的bindValue作为静态文本; 结果被缓存, 每个bindValue只打印一次
+            Log.w(LOG_TAG, "Treat bindValue as text: " + e.getMessage());
+            return new ConstantExpression(bindValue);
+        }
+    }
+
+    /**
+     * 注册表达式中可以使用的数据源, eg: registerSource("context", appContextSource)后可以使用${context.appName}.
+     *
+     * @see DataSources
+     */
+    public static void registerSource(String name, Object source) {
+        DataSources.register(name, source);
+    }
+
+    /**
+     * 注册表达式中可以调用的纯函数.
+     *
+     * @see Functions
+     */
+    public static void registerFunction(String name, Function function) {
+        Functions.register(name, function);
+    }
+
+    /**
+     * 注册表达式中可以调用的纯函数, 参数数目在编译表达式时检查.
+     *
+     * @see Functions
+     */
+    public static void registerFunction(String name, int minArgs, int maxArgs, Function function) {
+        Functions.register(name, minArgs, maxArgs, function);
+    }
+
+    /**
+     * 对属性路径求值, 路径同样会被编译并缓存. 绑定流程中请直接使用{@link #compile(String)}的结果.
+     *
+     * @param model 数据源Model.
+     * @param value 属性路径, eg: user.avatars[0].url
+     * @return 属性值.
+     */
     public static Object resolveValue(Object model, String value) {
-        String[] fields = value.split("\\.");
-        Object parentObject = model;
-        for (int i = 0; i < fields.length && parentObject != null; ++i) {
-            String field = fields[i];
-            String realField = field;
-            int arrayIndex = -1;
-            if (field.contains("[") && field.endsWith("]")) {
-                realField = field.substring(0, field.indexOf('['));
-                arrayIndex = Integer.parseInt(field.substring(field.indexOf('[') + 1, field.indexOf(']')));
-            }
-
-            Object fieldValue = JavaCalls.getField(parentObject, realField);
-            if (arrayIndex != -1) { // 处理集合类型
-                if (fieldValue instanceof List) {
-                    parentObject = ((List) fieldValue).get(arrayIndex);
-                } else if (fieldValue instanceof Object[]) {
-                    parentObject = ((Object[]) fieldValue)[arrayIndex];
-                } else if (fieldValue instanceof int[]) {
-                    parentObject = ((int[]) fieldValue)[arrayIndex];
-                } else if (fieldValue instanceof long[]) {
-                    parentObject = ((long[]) fieldValue)[arrayIndex];
-                } else if (fieldValue instanceof short[]) {
-                    parentObject = ((short[]) fieldValue)[arrayIndex];
-                } else if (fieldValue instanceof byte[]) {
-                    parentObject = ((byte[]) fieldValue)[arrayIndex];
-                } else if (fieldValue instanceof float[]) {
-                    parentObject = ((float[]) fieldValue)[arrayIndex];
-                } else if (fieldValue instanceof double[]) {
-                    parentObject = ((double[]) fieldValue)[arrayIndex];
-                } else if (fieldValue instanceof boolean[]) {
-                    parentObject = ((boolean[]) fieldValue)[arrayIndex];
-                } else if (fieldValue instanceof char[]) {
-                    parentObject = ((char[]) fieldValue)[arrayIndex];
-                } else {
-                    throw new IllegalArgumentException("Field is not a array type:" + value);
-                }
-            } else {
-                parentObject = fieldValue;
-            }
+        return compile(PREFIX + value + SUFFIX).evaluate(model);
+    }
 
-            if (i == fields.length - 1) { // the last
-                return parentObject;
-            }
+    /**
+     * @return 数组或者List中的元素, 下标越界或者容器为null时返回null.
+     * @throws IllegalArgumentException 不是数组或者List.
+     */
+    static Object getElement(Object fieldValue, int arrayIndex, String value) {
+        if (fieldValue == null) {
+            return null;
+        } else if (fieldValue instanceof List) {
+            List<?> list = (List<?>) fieldValue;
+            return inRange(arrayIndex, list.size()) ? list.get(arrayIndex) : null;
+        } else if (fieldValue instanceof Object[]) {
+            Object[] array = (Object[]) fieldValue;
+            return inRange(arrayIndex, array.length) ? array[arrayIndex] : null;
+        } else if (fieldValue instanceof int[]) {
+            int[] array = (int[]) fieldValue;
+            return inRange(arrayIndex, array.length) ? array[arrayIndex] : null;
+        } else if (fieldValue instanceof long[]) {
+            long[] array = (long[]) fieldValue;
+            return inRange(arrayIndex, array.length) ? array[arrayIndex] : null;
+        } else if (fieldValue instanceof short[]) {
+            short[] array = (short[]) fieldValue;
+            return inRange(arrayIndex, array.length) ? array[arrayIndex] : null;
+        } else if (fieldValue instanceof byte[]) {
+            byte[] array = (byte[]) fieldValue;
+            return inRange(arrayIndex, array.length) ? array[arrayIndex] : null;
+        } else if (fieldValue instanceof float[]) {
+            float[] array = (float[]) fieldValue;
+            return inRange(arrayIndex, array.length) ? array[arrayIndex] : null;
+        } else if (fieldValue instanceof double[]) {
+            double[] array = (double[]) fieldValue;
+            return inRange(arrayIndex, array.length) ? array[arrayIndex] : null;
+        } else if (fieldValue instanceof boolean[]) {
+            boolean[] array = (boolean[]) fieldValue;
+            return inRange(arrayIndex, array.length) ? array[arrayIndex] : null;
+        } else if (fieldValue instanceof char[]) {
+            char[] array = (char[]) fieldValue;
+            return inRange(arrayIndex, array.length) ? array[arrayIndex] : null;
+        } else {
+            throw new IllegalArgumentException("Field is not a array type:" + value);
         }
-        return null;
     }
-}
\ No newline at end of file
+
+    private static boolean inRange(int index, int length) {
+        return index >= 0 && index < length;
+    }
+}
@@ -0,0 +1,87 @@
+package code.jesse.palette.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * {@link ObservableModel}的基本实现, 每次通知变化时递增{@link VersionedModel}的版本号.
+ * <p/>
+ * Example:
+ * public class AppModel extends BaseObservableModel {
+ * public static final int PROPERTY_PROGRESS = 0;
+ *
+ * public void setProgress(int progress) {
+ * this.progress = progress;
+ * notifyPropertyChanged(PROPERTY_PROGRESS);
+ * }
+ * }
+ *
+ * @author zhulantian@gmail.com
+ */
+public class BaseObservableModel implements ObservableModel, VersionedModel {
+
+    private List<OnModelChangedListener> mListeners;
+    private long mVersion;
+
+    @Override
+    public void addOnModelChangedListener(OnModelChangedListener listener) {
+        if (mListeners == null) {
+            mListeners = new ArrayList<>(1);
+        }
+        if (!mListeners.contains(listener)) {
+            mListeners.add(listener);
+        }
+    }
+
+    @Override
+    public void removeOnModelChangedListener(OnModelChangedListener listener) {
+        if (mListeners != null) {
+            mListeners.remove(listener);
+        }
+    }
+
+    @Override
+    public long getVersion() {
+        return mVersion;
+    }
+
+    /**
+     * 通知一个属性发生了变化.
+     *
+     * @param propertyId 属性编号, 0~63.
+     * @throws IllegalArgumentException 编号超出范围.
+     */
+    protected void notifyPropertyChanged(int propertyId) {
+        notifyChanged(propertyFlag(propertyId));
+    }
+
+    /**
+     * @param propertyId 属性编号, 0~63.
+     * @return 属性对应的bit.
+     * @throws IllegalArgumentException 编号超出范围, 直接移位会与其它属性重叠.
+     */
+    public static long propertyFlag(int propertyId) {
+        if (propertyId < 0 || propertyId > 63) {
+            throw new IllegalArgumentException("propertyId must be in 0~63: " + propertyId);
+        }
+        return 1L << propertyId;
+    }
+
+    /**
+     * 通知一组属性发生了变化.
+     *
+     * @param dirtyFlags 变化的属性, 参见{@link ObservableModel}.
+     */
+    protected void notifyChanged(long dirtyFlags) {
+        mVersion++;
+        if (mListeners == null) {
+            return;
+        }
+        // 倒序遍历, 允许在回调中移除监听
+        for (int i = mListeners.size() - 1; i >= 0; --i) {
+            if (i < mListeners.size()) {
+                mListeners.get(i).onModelChanged(this, dirtyFlags);
+            }
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package code.jesse.palette.model;
+
+/**
+ * 对Model中被卡片绑定的字段计算指纹.
+ * <p/>
+ * 设置到CardPresenter之后, 如果新的Model(不要求是同一个对象)的指纹与上一次绑定时相同, 则跳过整次绑定.
+ * 指纹必须覆盖卡片读取的所有字段, 否则字段变化时卡片不会刷新.
+ * <p/>
+ * Example:
+ * public long fingerprint(Object model) {
+ * AppModel app = (AppModel) model;
+ * return app.id * 31L + app.likes;
+ * }
+ *
+ * @author zhulantian@gmail.com
+ * @see VersionedModel
+ */
+public interface Fingerprinter {
+
+    /**
+     * @param model 非null的Model.
+     */
+    long fingerprint(Object model);
+}
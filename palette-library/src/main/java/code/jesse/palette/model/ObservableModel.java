@@ -0,0 +1,37 @@
+package code.jesse.palette.model;
+
+/**
+ * 可观察的Model, 属性变化时通知监听者哪些属性变了.
+ * <p/>
+ * 属性用0~63的编号表示, 变化的属性合并为一个bit mask: 编号为n的属性对应{@code 1L << n}. CardPresenter绑定
+ * 可观察的Model时会注册监听, 只重新绑定通过{@link code.jesse.palette.CardPresenter#observe(int, int...)}声明
+ * 读取了这些属性的View.
+ * <p/>
+ * 通知必须在主线程发出.
+ *
+ * @author zhulantian@gmail.com
+ * @see BaseObservableModel
+ */
+public interface ObservableModel {
+
+    /**
+     * 表示全部属性都变化了.
+     */
+    long ALL_PROPERTIES = -1L;
+
+    void addOnModelChangedListener(OnModelChangedListener listener);
+
+    void removeOnModelChangedListener(OnModelChangedListener listener);
+
+    /**
+     * Model属性变化的监听.
+     */
+    interface OnModelChangedListener {
+
+        /**
+         * @param model      变化的Model.
+         * @param dirtyFlags 变化的属性, 参见{@link ObservableModel}.
+         */
+        void onModelChanged(ObservableModel model, long dirtyFlags);
+    }
+}
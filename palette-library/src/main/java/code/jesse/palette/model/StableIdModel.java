@@ -0,0 +1,12 @@
+package code.jesse.palette.model;
+
+/**
+ * 提供稳定id的Model, 同一个数据在列表刷新前后的id相同, 不同数据的id不同.
+ *
+ * @author zhulantian@gmail.com
+ * @see code.jesse.palette.adapter.CardRecyclerAdapter
+ */
+public interface StableIdModel {
+
+    long getStableId();
+}
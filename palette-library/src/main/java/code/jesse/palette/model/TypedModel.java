@@ -0,0 +1,15 @@
+package code.jesse.palette.model;
+
+/**
+ * 自己声明卡片类型的Model, 用于同一个Model类需要以不同卡片展示的情况.
+ *
+ * @author zhulantian@gmail.com
+ * @see code.jesse.palette.adapter.CardTypeRegistry
+ */
+public interface TypedModel {
+
+    /**
+     * @return 注册到CardTypeRegistry中的类型key.
+     */
+    Object getTypeKey();
+}
@@ -0,0 +1,15 @@
+package code.jesse.palette.model;
+
+/**
+ * 带版本号的Model, 每次修改会被绑定的属性时版本号都要变化.
+ * <p/>
+ * CardPresenter再次绑定同一个Model对象时, 如果版本号与上一次绑定时相同则跳过整次绑定.
+ * {@link BaseObservableModel}在每次通知变化时递增版本号.
+ *
+ * @author zhulantian@gmail.com
+ * @see Fingerprinter
+ */
+public interface VersionedModel {
+
+    long getVersion();
+}
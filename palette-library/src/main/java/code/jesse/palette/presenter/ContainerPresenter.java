@@ -8,6 +8,8 @@ import code.jesse.palette.R;
 import code.jesse.palette.ViewPresenter;
 import code.jesse.palette.tools.RecycleBin;
 import code.jesse.palette.tools.ViewTagger;
+import code.jesse.palette.trace.BindTracer;
+import code.jesse.palette.trace.Tracing;
 
 
 /**
@@ -22,6 +24,10 @@ public abstract class ContainerPresenter extends ViewPresenter {
     public void bind(Object model) {
         ensureRecycleBin();
         ViewGroup container = (ViewGroup) view();
+        BindTracer tracer = Tracing.getTracer();
+        if (tracer != null) {
+            tracer.beginSection(BindTracer.SECTION_CONTAINER_BIND, this, container.getId());
+        }
         int i;
         int itemCount = getItemCount(model);
         for (i = 0; i < itemCount; ++i) {
@@ -41,6 +47,9 @@ public abstract class ContainerPresenter extends ViewPresenter {
                 mRecycleBin.put(mLayoutId, reusedView);
             }
         }
+        if (tracer != null) {
+            tracer.endSection(BindTracer.SECTION_CONTAINER_BIND);
+        }
     }
 
     protected final View createItemView(ViewGroup parent) {
@@ -6,8 +6,10 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.Field;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
 
 public class JavaCalls {
 
@@ -35,6 +37,88 @@ public class JavaCalls {
         PRIMITIVE_MAP.put(double.class, double.class);
     }
 
+    /**
+     * 字段查找缓存, Class -> (fieldName -> Field), 查找失败的字段对应的值为{@link #NO_MEMBER}.
+     * 读取不加锁, 在绑定的热路径上调用.
+     */
+    private final static ConcurrentHashMap<Class<?>, ConcurrentHashMap<String, Object>>
+            FIELD_CACHE = new ConcurrentHashMap<Class<?>, ConcurrentHashMap<String, Object>>();
+
+    private final static OnFieldMissListener DEFAULT_FIELD_MISS_LISTENER =
+            new OnFieldMissListener() {
+                @Override
+                public void onFieldMiss(Class<?> clazz, String fieldName) {
+                    Log.w(LOG_TAG, "Field '" + fieldName + "' not found in " + clazz.getName());
+                }
+            };
+
+    private static volatile OnFieldMissListener sFieldMissListener = DEFAULT_FIELD_MISS_LISTENER;
+
+    /**
+     * 字段查找失败的回调.
+     */
+    public interface OnFieldMissListener {
+
+        /**
+         * @param clazz     被查找的类.
+         * @param fieldName 不存在的字段名.
+         */
+        void onFieldMiss(Class<?> clazz, String fieldName);
+    }
+
+    private final static String CONSTRUCTOR_NAME = "<init>";
+
+    /**
+     * 方法/构造函数查找缓存, Class -> 已查找过的签名, 包括重载匹配的结果, 查找失败的签名对应的值为
+     * {@link #NO_MEMBER}. 同一个类上查找过的签名一般很少, 按顺序比较比构造key再计算hash更快.
+     */
+    private final static Map<Class<?>, MemberEntry[]> METHOD_CACHE =
+            new ConcurrentHashMap<Class<?>, MemberEntry[]>();
+
+    private final static Map<Class<?>, MemberEntry[]> CONSTRUCTOR_CACHE =
+            new ConcurrentHashMap<Class<?>, MemberEntry[]>();
+
+    private final static Map<Class<?>, EmptyConstructor> EMPTY_CONSTRUCTOR_CACHE =
+            new ConcurrentHashMap<Class<?>, EmptyConstructor>();
+
+    /**
+     * 缓存中表示查找失败的值.
+     */
+    private final static Object NO_MEMBER = new Object();
+
+    /**
+     * 一个已查找过的签名及其结果.
+     */
+    private static final class MemberEntry {
+        private final String name;
+        private final Class<?>[] parameterTypes;
+        private final Object member;
+
+        MemberEntry(String name, Class<?>[] parameterTypes, Object member) {
+            this.name = name;
+            this.parameterTypes = parameterTypes;
+            this.member = member;
+        }
+    }
+
+    /**
+     * {@link #newEmptyInstanceOrThrow(Class)}使用的构造函数及其默认参数.
+     */
+    private static final class EmptyConstructor {
+        private final Constructor<?> constructor;
+        private final Object[] params;
+
+        EmptyConstructor(Constructor<?> constructor) {
+            constructor.setAccessible(true);
+            this.constructor = constructor;
+            Class<?>[] types = constructor.getParameterTypes();
+            this.params = new Object[types.length];
+            for (int i = 0; i < types.length; ++i) {
+                params[i] = getDefaultValue(types[i]);
+            }
+        }
+    }
+
     public static class JavaParam<T> {
         public final Class<? extends T> clazz;
         public final T obj;
@@ -46,61 +130,94 @@ public class JavaCalls {
     }
 
     public static <T> T getField(Object targetInstance, String fieldName) {
+        Field f = findField(targetInstance.getClass(), fieldName);
+        if (f == null) {
+            return null;
+        }
         try {
-            return getFieldOrThrow(targetInstance, fieldName);
-        } catch (NoSuchFieldException e) {
-            e.printStackTrace();
+            return (T) f.get(targetInstance);
         } catch (IllegalAccessException e) {
-            e.printStackTrace();
+            Log.w(LOG_TAG, "Meet exception when get Field '" + fieldName
+                    + "' in " + targetInstance, e);
         }
         return null;
     }
 
     public static <T> T getFieldOrThrow(Object targetInstance, String fieldName)
             throws NoSuchFieldException, IllegalAccessException {
-        Class<?> cls = targetInstance.getClass();
-        Field f = null;
-        while (f == null) {
-            try {
-                f = cls.getDeclaredField(fieldName);
-                f.setAccessible(true);
-            } catch (NoSuchFieldException e) {
-                cls = cls.getSuperclass();
-            }
-            if (cls == null) {
-                throw new NoSuchFieldException();
-            }
+        Field f = findField(targetInstance.getClass(), fieldName);
+        if (f == null) {
+            throw new NoSuchFieldException(fieldName);
         }
-        f.setAccessible(true);
         return (T) f.get(targetInstance);
     }
 
     public static void setField(Object targetInstance, String fieldName, Object val) {
+        Field f = findField(targetInstance.getClass(), fieldName);
+        if (f == null) {
+            return;
+        }
         try {
-            setFieldOrThrow(targetInstance, fieldName, val);
-        } catch (NoSuchFieldException e) {
-            e.printStackTrace();
+            f.set(targetInstance, val);
         } catch (IllegalAccessException e) {
-            e.printStackTrace();
+            Log.w(LOG_TAG, "Meet exception when set Field '" + fieldName
+                    + "' in " + targetInstance, e);
         }
     }
 
     public static void setFieldOrThrow(Object targetInstance, String fieldName, Object val)
             throws NoSuchFieldException, IllegalAccessException {
-        Class<?> cls = targetInstance.getClass();
-        Field f = null;
-        while (f == null) {
-            try {
-                f = cls.getDeclaredField(fieldName);
-            } catch (NoSuchFieldException e) {
-                cls = cls.getSuperclass();
+        Field f = findField(targetInstance.getClass(), fieldName);
+        if (f == null) {
+            throw new NoSuchFieldException(fieldName);
+        }
+        f.set(targetInstance, val);
+    }
+
+    /**
+     * 设置字段查找失败时的回调, 传入null恢复为默认的打印Log.
+     * <p/>
+     * 查找失败的结果同样会被缓存, 因此同一个(Class, fieldName)只会回调一次.
+     */
+    public static void setOnFieldMissListener(OnFieldMissListener listener) {
+        sFieldMissListener = listener == null ? DEFAULT_FIELD_MISS_LISTENER : listener;
+    }
+
+    /**
+     * 在clazz及其父类中查找字段, 结果(包括查找失败)按(Class, fieldName)缓存.
+     *
+     * @return 已经setAccessible的字段, 不存在时返回null.
+     */
+    public static Field findField(Class<?> clazz, String fieldName) {
+        ConcurrentHashMap<String, Object> fields = FIELD_CACHE.get(clazz);
+        if (fields == null) {
+            fields = new ConcurrentHashMap<String, Object>();
+            ConcurrentHashMap<String, Object> exist = FIELD_CACHE.putIfAbsent(clazz, fields);
+            if (exist != null) {
+                fields = exist;
             }
-            if (cls == null) {
-                throw new NoSuchFieldException();
+        } else {
+            Object cached = fields.get(fieldName);
+            if (cached != null) {
+                return cached == NO_MEMBER ? null : (Field) cached;
             }
         }
-        f.setAccessible(true);
-        f.set(targetInstance, val);
+
+        Field f = null;
+        for (Class<?> cls = clazz; cls != null && f == null; cls = cls.getSuperclass()) {
+            for (Field declared : cls.getDeclaredFields()) {
+                if (declared.getName().equals(fieldName)) {
+                    f = declared;
+                    f.setAccessible(true);
+                    break;
+                }
+            }
+        }
+        fields.put(fieldName, f == null ? NO_MEMBER : f);
+        if (f == null) {
+            sFieldMissListener.onFieldMiss(clazz, fieldName);
+        }
+        return f;
     }
 
     public static <T> T callMethod(Object targetInstance, String methodName,
@@ -142,18 +259,33 @@ public class JavaCalls {
     private static Method getDeclaredMethod(final Class<?> clazz, String name,
                                             Class<?>... parameterTypes) throws NoSuchMethodException,
             SecurityException {
-        Method[] methods = clazz.getDeclaredMethods();
-        Method method = findMethodByName(methods, name, parameterTypes);
-        if (method == null) {
-            if (clazz.getSuperclass() != null) {
-                // find in parent
-                return getDeclaredMethod(clazz.getSuperclass(), name, parameterTypes);
-            } else {
-                throw new NoSuchMethodException();
+        if (name == null) {
+            throw new NullPointerException("Method name must not be null.");
+        }
+        Object cached = getCachedMember(METHOD_CACHE, clazz, name, parameterTypes);
+        if (cached == null) {
+            Method method = findDeclaredMethod(clazz, name, parameterTypes);
+            if (method != null) {
+                method.setAccessible(true);
             }
+            cached = method == null ? NO_MEMBER : method;
+            putCachedMember(METHOD_CACHE, clazz, name, parameterTypes, cached);
         }
-        method.setAccessible(true);
-        return method;
+        if (cached == NO_MEMBER) {
+            throw new NoSuchMethodException(name);
+        }
+        return (Method) cached;
+    }
+
+    private static Method findDeclaredMethod(final Class<?> clazz, String name,
+                                             Class<?>[] parameterTypes) {
+        for (Class<?> cls = clazz; cls != null; cls = cls.getSuperclass()) {
+            Method method = findMethodByName(cls.getDeclaredMethods(), name, parameterTypes);
+            if (method != null) {
+                return method;
+            }
+        }
+        return null;
     }
 
     private static Method findMethodByName(Method[] list, String name,
@@ -248,21 +380,16 @@ public class JavaCalls {
     public static <T> T newEmptyInstanceOrThrow(Class<?> clazz)
             throws IllegalAccessException, InvocationTargetException,
             InstantiationException, ClassNotFoundException {
-        Constructor<?>[] constructors = clazz.getDeclaredConstructors();
-        if (constructors == null || constructors.length == 0) {
-            throw new IllegalArgumentException("Can't get even one available constructor for " + clazz);
-        }
-        Constructor<?> constructor = constructors[0];
-        constructor.setAccessible(true);
-        Class<?>[] types = constructor.getParameterTypes();
-        if (types == null || types.length == 0) {
-            return (T) constructor.newInstance();
-        }
-        Object[] params = new Object[types.length];
-        for (int i = 0; i < types.length; ++i) {
-            params[i] = getDefaultValue(types[i]);
+        EmptyConstructor empty = EMPTY_CONSTRUCTOR_CACHE.get(clazz);
+        if (empty == null) {
+            Constructor<?>[] constructors = clazz.getDeclaredConstructors();
+            if (constructors == null || constructors.length == 0) {
+                throw new IllegalArgumentException("Can't get even one available constructor for " + clazz);
+            }
+            empty = new EmptyConstructor(constructors[0]);
+            EMPTY_CONSTRUCTOR_CACHE.put(clazz, empty);
         }
-        return (T) constructor.newInstance(params);
+        return (T) empty.constructor.newInstance(empty.params);
     }
 
     private static Object getDefaultValue(Class<?> clazz) {
@@ -287,11 +414,63 @@ public class JavaCalls {
             throws SecurityException, NoSuchMethodException,
             IllegalArgumentException, InstantiationException,
             IllegalAccessException, InvocationTargetException {
-        Constructor<?> constructor = clazz
-                .getConstructor(getParameterTypes(args));
+        Constructor<?> constructor = getConstructor(clazz, getParameterTypes(args));
         return (T) constructor.newInstance(getParameters(args));
     }
 
+    private static Constructor<?> getConstructor(Class<?> clazz, Class<?>[] parameterTypes)
+            throws NoSuchMethodException {
+        Object cached = getCachedMember(CONSTRUCTOR_CACHE, clazz, CONSTRUCTOR_NAME, parameterTypes);
+        if (cached == null) {
+            try {
+                Constructor<?> constructor = clazz.getConstructor(parameterTypes);
+                // 已经确认是public的构造函数, 跳过每次newInstance时的调用者访问检查
+                constructor.setAccessible(true);
+                cached = constructor;
+            } catch (NoSuchMethodException e) {
+                cached = NO_MEMBER;
+            }
+            putCachedMember(CONSTRUCTOR_CACHE, clazz, CONSTRUCTOR_NAME, parameterTypes, cached);
+        }
+        if (cached == NO_MEMBER) {
+            throw new NoSuchMethodException(clazz.getName() + CONSTRUCTOR_NAME);
+        }
+        return (Constructor<?>) cached;
+    }
+
+    /**
+     * @return 缓存的方法/构造函数或者{@link #NO_MEMBER}, 没有查找过时返回null.
+     */
+    private static Object getCachedMember(Map<Class<?>, MemberEntry[]> cache, Class<?> clazz,
+                                          String name, Class<?>[] parameterTypes) {
+        MemberEntry[] entries = cache.get(clazz);
+        if (entries != null) {
+            for (MemberEntry entry : entries) {
+                if (entry.name.equals(name) && Arrays.equals(entry.parameterTypes, parameterTypes)) {
+                    return entry.member;
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 复制并追加, 读取时不需要加锁.
+     */
+    private static void putCachedMember(Map<Class<?>, MemberEntry[]> cache, Class<?> clazz,
+                                        String name, Class<?>[] parameterTypes, Object member) {
+        synchronized (cache) {
+            MemberEntry[] entries = cache.get(clazz);
+            int length = entries == null ? 0 : entries.length;
+            MemberEntry[] newEntries = new MemberEntry[length + 1];
+            if (entries != null) {
+                System.arraycopy(entries, 0, newEntries, 0, length);
+            }
+            newEntries[length] = new MemberEntry(name, parameterTypes, member);
+            cache.put(clazz, newEntries);
+        }
+    }
+
     public static Object newInstance(String className, Object... args) {
         try {
             return newInstanceOrThrow(className, args);
@@ -28,4 +28,19 @@ public interface Tags {
      * Desc: 用于放置recycleBin. 一般是一个ListView对应一个.
      */
     int TAG_RECYCLE_BIN = R.id.tag_recycle_bin;
+
+    /**
+     * Desc: 这个Tag放置的是layout根View上的绑定计划实例. Usage: {@link code.jesse.palette.bind.BindingPlanPresenter}.
+     */
+    int TAG_BINDING_PLAN = R.id.tag_binding_plan;
+
+    /**
+     * Desc: 这个Tag放置的是List容器的子卡片layout id, 即bindItemLayout. Usage: {@link code.jesse.palette.bind.ValueBinders}.
+     */
+    int TAG_ITEM_LAYOUT = R.id.tag_item_layout;
+
+    /**
+     * Desc: 这个Tag放置的是TextView显示数字用的字符缓冲区. Usage: {@link code.jesse.palette.bind.ValueBinders}.
+     */
+    int TAG_NUMBER_BUFFER = R.id.tag_number_buffer;
 }
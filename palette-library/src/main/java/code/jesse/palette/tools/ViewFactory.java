@@ -5,6 +5,7 @@ import android.util.AttributeSet;
 import android.view.LayoutInflater;
 import android.view.View;
 
+import code.jesse.palette.bind.BindingPlan;
 import code.jesse.palette.bind.BindingViewFactoryInterceptor;
 
 /**
@@ -18,16 +19,30 @@ public class ViewFactory implements LayoutInflater.Factory {
             "android.app."
     };
 
-    private final LayoutInflater mInflater;
+    final LayoutInflater mInflater;
     private final BindingViewFactoryInterceptor mBindingInterceptor;
 
+    /**
+     * 本次inflate中已经调用过{@link #onCreateView(String, Context, AttributeSet)}的次数, 作为View的编号.
+     */
+    private int mViewCount;
+
     public ViewFactory(LayoutInflater inflater) {
+        this(inflater, null);
+    }
+
+    /**
+     * @param inflater 使用这个Factory的Inflater.
+     * @param plan     将要inflate的layout已有的绑定计划, 为null时在inflate时收集.
+     */
+    public ViewFactory(LayoutInflater inflater, BindingPlan plan) {
         mInflater = inflater;
-        mBindingInterceptor = new BindingViewFactoryInterceptor();
+        mBindingInterceptor = new BindingViewFactoryInterceptor(plan);
     }
 
     @Override
     public View onCreateView(String name, Context context, AttributeSet attrs) {
+        int index = mViewCount++;
         View view = null;
         if (name.indexOf('.') == -1) {
             for (String prefix : sClassPrefixList) {
@@ -50,13 +65,23 @@ public class ViewFactory implements LayoutInflater.Factory {
             }
         }
         if (view != null) {
-            intercept(view, attrs);
+            intercept(index, view, attrs);
         }
         return view;
     }
 
-    private void intercept(View view, AttributeSet attrs) {
+    /**
+     * 在layout inflate完成时调用.
+     *
+     * @param root     layout的根View.
+     * @param layoutId layout的资源id.
+     */
+    public void onInflateFinished(View root, int layoutId) {
+        mBindingInterceptor.onInflateFinished(root, layoutId);
+    }
+
+    private void intercept(int index, View view, AttributeSet attrs) {
         // 此处开启binding模块
-        mBindingInterceptor.onViewCreated(view, attrs);
+        mBindingInterceptor.onViewCreated(index, view, attrs);
     }
 }
@@ -5,13 +5,15 @@ import android.view.LayoutInflater;
 import android.view.View;
 import android.view.ViewGroup;
 
+import code.jesse.palette.bind.BindingPlan;
+import code.jesse.palette.trace.BindTracer;
+import code.jesse.palette.trace.Tracing;
+
 /**
  * @author zhulantian@gmail.com
  */
 public class ViewInflater {
 
-    private static ViewFactory sFactory;
-
     private ViewInflater() {
         // for utility class
     }
@@ -24,8 +26,18 @@ public class ViewInflater {
      * @return view
      */
     public static <T extends View> T inflate(ViewGroup parent, int resId) {
-        T result = (T) getInflater(parent.getContext()).inflate(resId, parent, false);
+        BindTracer tracer = Tracing.getTracer();
+        if (tracer != null) {
+            tracer.beginSection(BindTracer.SECTION_INFLATE, null, resId);
+        }
+        Context context = parent.getContext();
+        ViewFactory factory = createFactory(context, resId);
+        T result = (T) factory.mInflater.inflate(resId, parent, false);
         ViewTagger.setLayoutIdTag(result, resId);
+        factory.onInflateFinished(result, resId);
+        if (tracer != null) {
+            tracer.endSection(BindTracer.SECTION_INFLATE);
+        }
 
         return result;
     }
@@ -38,15 +50,26 @@ public class ViewInflater {
      * @return view
      */
     public static <T extends View> T inflate(Context context, int resId) {
-        T result = (T) getInflater(context).inflate(resId, null);
+        BindTracer tracer = Tracing.getTracer();
+        if (tracer != null) {
+            tracer.beginSection(BindTracer.SECTION_INFLATE, null, resId);
+        }
+        ViewFactory factory = createFactory(context, resId);
+        T result = (T) factory.mInflater.inflate(resId, null);
         ViewTagger.setLayoutIdTag(result, resId);
+        factory.onInflateFinished(result, resId);
+        if (tracer != null) {
+            tracer.endSection(BindTracer.SECTION_INFLATE);
+        }
 
         return result;
     }
 
-    private static LayoutInflater getInflater(Context context) {
+    private static ViewFactory createFactory(Context context, int resId) {
         LayoutInflater inflater = LayoutInflater.from(context).cloneInContext(context);
-        inflater.setFactory(new ViewFactory(inflater));
-        return inflater;
+        BindingPlan plan = BindingPlan.get(resId, context.getResources().getConfiguration());
+        ViewFactory factory = new ViewFactory(inflater, plan);
+        inflater.setFactory(factory);
+        return factory;
     }
 }
@@ -3,6 +3,7 @@ package code.jesse.palette.tools;
 import android.view.View;
 
 import code.jesse.palette.CardPresenter;
+import code.jesse.palette.bind.BindingPlan;
 
 /**
  * View Tag工具类.
@@ -42,6 +43,31 @@ public class ViewTagger implements Tags {
         return (String) view.getTag(TAG_BIND_VALUE);
     }
 
+    public static void setBindingPlan(View view, BindingPlan.Instance instance) {
+        view.setTag(TAG_BINDING_PLAN, instance);
+    }
+
+    public static BindingPlan.Instance getBindingPlan(View view) {
+        return (BindingPlan.Instance) view.getTag(TAG_BINDING_PLAN);
+    }
+
+    public static void setItemLayout(View view, int layoutResId) {
+        view.setTag(TAG_ITEM_LAYOUT, layoutResId);
+    }
+
+    public static int getItemLayout(View view) {
+        Integer id = (Integer) view.getTag(TAG_ITEM_LAYOUT);
+        return id == null ? NO_ID : id;
+    }
+
+    public static void setNumberBuffer(View view, char[] buffer) {
+        view.setTag(TAG_NUMBER_BUFFER, buffer);
+    }
+
+    public static char[] getNumberBuffer(View view) {
+        return (char[]) view.getTag(TAG_NUMBER_BUFFER);
+    }
+
     public static <T> RecycleBin<T> getRecycleBin(View view) {
         return (RecycleBin<T>) view.getTag(TAG_CARD_PRESENTER);
     }
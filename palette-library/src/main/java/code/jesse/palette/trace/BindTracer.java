@@ -0,0 +1,61 @@
+package code.jesse.palette.trace;
+
+/**
+ * 绑定过程的追踪回调, 通过{@link Tracing#setTracer(BindTracer)}开启.
+ * <p/>
+ * 框架在以下位置成对调用{@link #beginSection(int, Object, int)}和{@link #endSection(int)}, 同一线程上的区间是嵌套的.
+ * 没有设置BindTracer时框架只多一次静态字段读取.
+ * <p/>
+ * 回调在绑定的线程(一般是主线程)上同步执行, 实现应当尽量轻量.
+ *
+ * @author zhulantian@gmail.com
+ * @see SystraceBindTracer
+ */
+public interface BindTracer {
+
+    /**
+     * CardPresenter.bind整张卡片, target为CardPresenter, id为卡片的layout id.
+     */
+    int SECTION_CARD_BIND = 0;
+
+    /**
+     * 一个ViewPresenter.bind, target为ViewPresenter, id为ViewId.
+     */
+    int SECTION_PRESENTER_BIND = 1;
+
+    /**
+     * BindingPresenter对bindValue求值, target为BindingPresenter, id为ViewId.
+     */
+    int SECTION_RESOLVE = 2;
+
+    /**
+     * ViewInflater.inflate, target为null, id为layout id.
+     */
+    int SECTION_INFLATE = 3;
+
+    /**
+     * ContainerPresenter.bind所有子View, target为ContainerPresenter, id为ViewId.
+     */
+    int SECTION_CONTAINER_BIND = 4;
+
+    /**
+     * CardAdapter.getView或CardRecyclerAdapter.onBindViewHolder, target为Adapter, id为0.
+     */
+    int SECTION_GET_VIEW = 5;
+
+    /**
+     * 进入一个区间.
+     *
+     * @param section 区间类型, SECTION_*.
+     * @param target  执行绑定的对象, 可能为null.
+     * @param id      相关的资源id, 可能为0.
+     */
+    void beginSection(int section, Object target, int id);
+
+    /**
+     * 结束最近一个进入的区间.
+     *
+     * @param section 区间类型, 与对应的beginSection相同.
+     */
+    void endSection(int section);
+}
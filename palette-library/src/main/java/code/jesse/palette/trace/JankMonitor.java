@@ -0,0 +1,308 @@
+package code.jesse.palette.trace;
+
+import android.os.Build;
+import android.view.Choreographer;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 找出让帧超时的卡片绑定.
+ * <p/>
+ * JankMonitor作为{@link BindTracer}记录每个区间的耗时, 并通过Choreographer监听每一帧. 一帧的间隔超过预算且
+ * 这一帧中发生过绑定时, 把这一帧的绑定总耗时以及其中最慢的ViewPresenter(所在卡片的layout, Presenter类, ViewId)
+ * 记录到固定大小的环形缓冲区中, 并通知{@link OnJankListener}. API 16以下没有Choreographer,
+ * 改为在一次最外层区间结束时绑定耗时本身超过预算才记录.
+ * <p/>
+ * Example:
+ * JankMonitor monitor = new JankMonitor(64, JankMonitor.DEFAULT_FRAME_BUDGET_NANOS);
+ * monitor.start();
+ * ...
+ * monitor.dump(writer);
+ * <p/>
+ * 只应在主线程使用. {@link #start()}会保留原来的BindTracer并继续转发给它.
+ *
+ * @author zhulantian@gmail.com
+ */
+public class JankMonitor implements BindTracer {
+
+    /**
+     * 60fps下一帧的预算.
+     */
+    public static final long DEFAULT_FRAME_BUDGET_NANOS = 16666667L;
+
+    private static final int MAX_DEPTH = 32;
+    private static final int NO_LAYOUT = 0;
+
+    private final long mFrameBudgetNanos;
+    private final JankRecord[] mRecords;
+    private int mNextRecord;
+    private int mRecordCount;
+
+    private BindTracer mDelegate;
+    private OnJankListener mListener;
+    private Object mFrameCallback;
+    private boolean mStarted;
+
+    // 正在进行的区间
+    private final int[] mSections = new int[MAX_DEPTH];
+    private final Object[] mTargets = new Object[MAX_DEPTH];
+    private final int[] mIds = new int[MAX_DEPTH];
+    private final long[] mStartTimes = new long[MAX_DEPTH];
+    private int mDepth;
+
+    // 当前帧的统计
+    private long mLastFrameTimeNanos;
+    private long mBindNanos;
+    private long mWorstNanos;
+    private Object mWorstPresenter;
+    private int mWorstViewId;
+    private int mWorstLayoutId;
+
+    /**
+     * @param capacity         最多保留的记录数.
+     * @param frameBudgetNanos 一帧的预算.
+     */
+    public JankMonitor(int capacity, long frameBudgetNanos) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("capacity must be positive: " + capacity);
+        }
+        mRecords = new JankRecord[capacity];
+        mFrameBudgetNanos = frameBudgetNanos;
+    }
+
+    /**
+     * 设置为当前的BindTracer并开始监听帧.
+     */
+    public void start() {
+        if (mStarted) {
+            return;
+        }
+        mStarted = true;
+        mDelegate = Tracing.getTracer();
+        Tracing.setTracer(this);
+        resetFrame();
+        mLastFrameTimeNanos = 0;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN) {
+            FrameCallback callback = new FrameCallback(this);
+            mFrameCallback = callback;
+            Choreographer.getInstance().postFrameCallback(callback);
+        }
+    }
+
+    /**
+     * 停止监听, 恢复原来的BindTracer.
+     */
+    public void stop() {
+        if (!mStarted) {
+            return;
+        }
+        mStarted = false;
+        if (Tracing.getTracer() == this) {
+            Tracing.setTracer(mDelegate);
+        }
+        mDelegate = null;
+        if (mFrameCallback != null) {
+            Choreographer.getInstance().removeFrameCallback((FrameCallback) mFrameCallback);
+            mFrameCallback = null;
+        }
+    }
+
+    public void setOnJankListener(OnJankListener listener) {
+        mListener = listener;
+    }
+
+    @Override
+    public void beginSection(int section, Object target, int id) {
+        if (mDepth < MAX_DEPTH) {
+            mSections[mDepth] = section;
+            mTargets[mDepth] = target;
+            mIds[mDepth] = id;
+            mStartTimes[mDepth] = System.nanoTime();
+        }
+        mDepth++;
+        if (mDelegate != null) {
+            mDelegate.beginSection(section, target, id);
+        }
+    }
+
+    @Override
+    public void endSection(int section) {
+        if (mDelegate != null) {
+            mDelegate.endSection(section);
+        }
+        if (mDepth == 0) {
+            return;
+        }
+        int depth = --mDepth;
+        if (depth >= MAX_DEPTH) {
+            return;
+        }
+        long duration = System.nanoTime() - mStartTimes[depth];
+        if (mSections[depth] == SECTION_PRESENTER_BIND && duration > mWorstNanos) {
+            mWorstNanos = duration;
+            mWorstPresenter = mTargets[depth];
+            mWorstViewId = mIds[depth];
+            mWorstLayoutId = findLayoutId(depth);
+        }
+        mTargets[depth] = null;
+        if (depth == 0) {
+            mBindNanos += duration;
+            if (mFrameCallback == null && mBindNanos > mFrameBudgetNanos) {
+                record(System.nanoTime(), mBindNanos);
+                resetFrame();
+            }
+        }
+    }
+
+    /**
+     * @return 包含第depth层区间的卡片layout id.
+     */
+    private int findLayoutId(int depth) {
+        for (int i = depth - 1; i >= 0; --i) {
+            if (mSections[i] == SECTION_CARD_BIND) {
+                return mIds[i];
+            }
+        }
+        return NO_LAYOUT;
+    }
+
+    void onFrame(long frameTimeNanos) {
+        if (mLastFrameTimeNanos != 0 && mBindNanos > 0) {
+            long frameDuration = frameTimeNanos - mLastFrameTimeNanos;
+            if (frameDuration > mFrameBudgetNanos) {
+                record(frameTimeNanos, frameDuration);
+            }
+        }
+        mLastFrameTimeNanos = frameTimeNanos;
+        resetFrame();
+    }
+
+    private void record(long timeNanos, long frameDuration) {
+        JankRecord record = new JankRecord(timeNanos, frameDuration, mBindNanos, mWorstLayoutId,
+                mWorstPresenter == null ? null : mWorstPresenter.getClass(), mWorstViewId, mWorstNanos);
+        mRecords[mNextRecord] = record;
+        mNextRecord = (mNextRecord + 1) % mRecords.length;
+        if (mRecordCount < mRecords.length) {
+            mRecordCount++;
+        }
+        if (mListener != null) {
+            mListener.onJank(record);
+        }
+    }
+
+    private void resetFrame() {
+        mBindNanos = 0;
+        mWorstNanos = 0;
+        mWorstPresenter = null;
+        mWorstViewId = 0;
+        mWorstLayoutId = NO_LAYOUT;
+    }
+
+    /**
+     * @return 缓冲区中的记录, 从旧到新.
+     */
+    public List<JankRecord> getRecords() {
+        List<JankRecord> records = new ArrayList<>(mRecordCount);
+        int first = (mNextRecord - mRecordCount + mRecords.length) % mRecords.length;
+        for (int i = 0; i < mRecordCount; ++i) {
+            records.add(mRecords[(first + i) % mRecords.length]);
+        }
+        return records;
+    }
+
+    public void clear() {
+        for (int i = 0; i < mRecords.length; ++i) {
+            mRecords[i] = null;
+        }
+        mNextRecord = 0;
+        mRecordCount = 0;
+    }
+
+    /**
+     * 输出缓冲区中的记录, 从旧到新.
+     */
+    public void dump(PrintWriter writer) {
+        List<JankRecord> records = getRecords();
+        writer.println("JankMonitor: " + records.size() + " records, budget "
+                + mFrameBudgetNanos / 1000 + "us");
+        for (JankRecord record : records) {
+            writer.println("  " + record);
+        }
+        writer.flush();
+    }
+
+    /**
+     * 一次超时的帧.
+     */
+    public static final class JankRecord {
+        /**
+         * 记录的时间, System.nanoTime()时基.
+         */
+        public final long timeNanos;
+        /**
+         * 帧间隔(API 16以下为绑定耗时).
+         */
+        public final long frameDurationNanos;
+        /**
+         * 这一帧中所有绑定和inflate的耗时.
+         */
+        public final long bindDurationNanos;
+        /**
+         * 最慢Presenter所在卡片的layout id, 不在卡片中时为0.
+         */
+        public final int layoutId;
+        /**
+         * 最慢的Presenter类, 这一帧中没有Presenter绑定时为null.
+         */
+        public final Class<?> presenterClass;
+        public final int viewId;
+        public final long presenterDurationNanos;
+
+        JankRecord(long timeNanos, long frameDurationNanos, long bindDurationNanos, int layoutId,
+                   Class<?> presenterClass, int viewId, long presenterDurationNanos) {
+            this.timeNanos = timeNanos;
+            this.frameDurationNanos = frameDurationNanos;
+            this.bindDurationNanos = bindDurationNanos;
+            this.layoutId = layoutId;
+            this.presenterClass = presenterClass;
+            this.viewId = viewId;
+            this.presenterDurationNanos = presenterDurationNanos;
+        }
+
+        @Override
+        public String toString() {
+            return "frame=" + frameDurationNanos / 1000 + "us bind=" + bindDurationNanos / 1000
+                    + "us layout=0x" + Integer.toHexString(layoutId)
+                    + " presenter=" + (presenterClass == null ? null : presenterClass.getName())
+                    + " view=0x" + Integer.toHexString(viewId)
+                    + " presenterBind=" + presenterDurationNanos / 1000 + "us";
+        }
+    }
+
+    public interface OnJankListener {
+        void onJank(JankRecord record);
+    }
+
+    /**
+     * 单独的类, 避免在没有Choreographer的系统上加载JankMonitor时找不到FrameCallback.
+     */
+    private static final class FrameCallback implements Choreographer.FrameCallback {
+
+        private final JankMonitor mMonitor;
+
+        FrameCallback(JankMonitor monitor) {
+            mMonitor = monitor;
+        }
+
+        @Override
+        public void doFrame(long frameTimeNanos) {
+            if (mMonitor.mFrameCallback != this) {
+                return;
+            }
+            mMonitor.onFrame(frameTimeNanos);
+            Choreographer.getInstance().postFrameCallback(this);
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package code.jesse.palette.trace;
+
+import android.content.Context;
+import android.content.res.Resources;
+import android.os.Build;
+import android.os.Trace;
+import android.util.SparseArray;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 把绑定区间输出为Systrace/Perfetto中的section, 标签为"区间类型:类名#资源名", eg: bind:TitlePresenter#title.
+ * <p/>
+ * 需要API 18, 更低版本上不输出. 标签只在开启追踪时拼接, 类名和资源名会被缓存.
+ *
+ * @author zhulantian@gmail.com
+ */
+public class SystraceBindTracer implements BindTracer {
+
+    /**
+     * Trace.beginSection允许的最大长度.
+     */
+    private static final int MAX_SECTION_NAME_LENGTH = 127;
+
+    private static final String[] SECTION_NAMES = {
+            "card", "bind", "resolve", "inflate", "container", "getView"
+    };
+
+    private final Resources mResources;
+    private final SparseArray<String> mResourceNames = new SparseArray<>();
+    private final Map<Class<?>, String> mClassNames = new HashMap<>();
+
+    public SystraceBindTracer(Context context) {
+        mResources = context.getApplicationContext().getResources();
+    }
+
+    public static boolean isSupported() {
+        return Build.VERSION.SDK_INT >= Build.VERSION_CODES.JELLY_BEAN_MR2;
+    }
+
+    @Override
+    public void beginSection(int section, Object target, int id) {
+        if (!isSupported()) {
+            return;
+        }
+        String name = SECTION_NAMES[section] + ':' + getClassName(target) + '#' + getResourceName(id);
+        if (name.length() > MAX_SECTION_NAME_LENGTH) {
+            name = name.substring(0, MAX_SECTION_NAME_LENGTH);
+        }
+        Trace.beginSection(name);
+    }
+
+    @Override
+    public void endSection(int section) {
+        if (isSupported()) {
+            Trace.endSection();
+        }
+    }
+
+    private String getClassName(Object target) {
+        if (target == null) {
+            return "";
+        }
+        Class<?> clazz = target.getClass();
+        String name = mClassNames.get(clazz);
+        if (name == null) {
+            name = clazz.getName();
+            name = name.substring(name.lastIndexOf('.') + 1);
+            mClassNames.put(clazz, name);
+        }
+        return name;
+    }
+
+    private String getResourceName(int id) {
+        if (id == 0) {
+            return "";
+        }
+        String name = mResourceNames.get(id);
+        if (name == null) {
+            try {
+                name = mResources.getResourceEntryName(id);
+            } catch (Resources.NotFoundException e) {
+                name = Integer.toHexString(id);
+            }
+            mResourceNames.put(id, name);
+        }
+        return name;
+    }
+}
@@ -0,0 +1,32 @@
+package code.jesse.palette.trace;
+
+/**
+ * 当前使用的{@link BindTracer}, 默认为null, 即不追踪.
+ * <p/>
+ * Example:
+ * Tracing.setTracer(new SystraceBindTracer(context));
+ *
+ * @author zhulantian@gmail.com
+ */
+public final class Tracing {
+
+    private static BindTracer sTracer;
+
+    private Tracing() {
+        // utility
+    }
+
+    /**
+     * @param tracer 为null时关闭追踪. 应在主线程上、没有正在进行的绑定时设置.
+     */
+    public static void setTracer(BindTracer tracer) {
+        sTracer = tracer;
+    }
+
+    /**
+     * @return 当前的BindTracer, 没有开启追踪时为null.
+     */
+    public static BindTracer getTracer() {
+        return sTracer;
+    }
+}
@@ -0,0 +1,68 @@
+package code.jesse.palette;
+
+import java.util.Locale;
+
+/**
+ * 简单的JVM微基准: 预热之后重复测量若干轮, 取最好的一轮.
+ * <p/>
+ * 只用于比较同一台机器上两种实现的相对快慢, 绝对数值没有意义. 运行各个*Benchmark类的main()即可.
+ *
+ * @author zhulantian@gmail.com
+ */
+public abstract class Benchmark {
+
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int ROUNDS = 5;
+    private static final int ITERATIONS = 1000000;
+
+    /**
+     * 防止JIT把没有使用的结果优化掉.
+     */
+    private static volatile Object sSink;
+
+    private final String mName;
+
+    protected Benchmark(String name) {
+        mName = name;
+    }
+
+    /**
+     * 被测量的一次操作.
+     */
+    protected abstract Object run() throws Exception;
+
+    /**
+     * @return 每次操作的纳秒数, 多轮中最好的一轮.
+     */
+    public double measure() throws Exception {
+        for (int i = 0; i < WARMUP_ROUNDS; ++i) {
+            round();
+        }
+        double best = Double.MAX_VALUE;
+        for (int i = 0; i < ROUNDS; ++i) {
+            best = Math.min(best, round());
+        }
+        return best;
+    }
+
+    private double round() throws Exception {
+        Object sink = null;
+        long start = System.nanoTime();
+        for (int i = 0; i < ITERATIONS; ++i) {
+            sink = run();
+        }
+        long elapsed = System.nanoTime() - start;
+        sSink = sink;
+        return (double) elapsed / ITERATIONS;
+    }
+
+    /**
+     * 依次测量并打印结果.
+     */
+    public static void report(Benchmark... benchmarks) throws Exception {
+        for (Benchmark benchmark : benchmarks) {
+            System.out.println(String.format(Locale.US, "%-40s %8.1f ns/op",
+                    benchmark.mName, benchmark.measure()));
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package code.jesse.palette.adapter;
+
+import org.junit.Test;
+
+import code.jesse.palette.CardSpec;
+import code.jesse.palette.model.TypedModel;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author zhulantian@gmail.com
+ */
+public class CardTypeRegistryTest {
+
+    static class Base {
+    }
+
+    static class Child extends Base {
+    }
+
+    static class GrandChild extends Child {
+    }
+
+    static class Banner implements TypedModel {
+        @Override
+        public Object getTypeKey() {
+            return "banner";
+        }
+    }
+
+    private static final CardSpec BASE_SPEC = CardSpec.builder(1).build();
+    private static final CardSpec CHILD_SPEC = CardSpec.builder(2).build();
+    private static final CardSpec BANNER_SPEC = CardSpec.builder(3).build();
+
+    @Test
+    public void resolvesSuperclass() {
+        CardTypeRegistry registry = new CardTypeRegistry().register(Base.class, BASE_SPEC);
+        assertEquals(0, registry.getCardType(new Base()));
+        assertEquals(0, registry.getCardType(new GrandChild()));
+        assertEquals(1, registry.getTypeCount());
+    }
+
+    @Test
+    public void registerSubclassAfterLookup() {
+        CardTypeRegistry registry = new CardTypeRegistry().register(Base.class, BASE_SPEC);
+        assertEquals(0, registry.getCardType(new Child()));
+        assertEquals(0, registry.getCardType(new GrandChild()));
+
+        registry.register(Child.class, CHILD_SPEC);
+        assertEquals(1, registry.getCardType(new Child()));
+        assertEquals(1, registry.getCardType(new GrandChild()));
+        assertEquals(0, registry.getCardType(new Base()));
+    }
+
+    @Test
+    public void sameSpecSharesType() {
+        CardTypeRegistry registry = new CardTypeRegistry()
+                .register(Base.class, BASE_SPEC)
+                .register(Child.class, BASE_SPEC);
+        assertEquals(1, registry.getTypeCount());
+        assertEquals(0, registry.getCardType(new Child()));
+    }
+
+    @Test
+    public void typeKeyAndPlaceholder() {
+        CardTypeRegistry registry = new CardTypeRegistry()
+                .register(Base.class, BASE_SPEC)
+                .register("banner", BANNER_SPEC)
+                .registerPlaceholder(CHILD_SPEC);
+        assertEquals(1, registry.getCardType(new Banner()));
+        assertEquals(2, registry.getCardType(null));
+    }
+
+    @Test
+    public void duplicateRegistration() {
+        CardTypeRegistry registry = new CardTypeRegistry().register(Base.class, BASE_SPEC);
+        try {
+            registry.register(Base.class, CHILD_SPEC);
+            fail();
+        } catch (IllegalArgumentException expected) {
+            // expected
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unregisteredModel() {
+        new CardTypeRegistry().register(Child.class, CHILD_SPEC).getCardType(new Base());
+    }
+}
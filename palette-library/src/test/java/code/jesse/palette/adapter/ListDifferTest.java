@@ -0,0 +1,169 @@
+package code.jesse.palette.adapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * @author zhulantian@gmail.com
+ */
+public class ListDifferTest {
+
+    /**
+     * 第一个字符是id, 其余是内容.
+     */
+    private static final ItemComparator<String> COMPARATOR = new ItemComparator<String>() {
+        @Override
+        public boolean areItemsTheSame(String oldItem, String newItem) {
+            return oldItem.charAt(0) == newItem.charAt(0);
+        }
+    };
+
+    /**
+     * 按回调修改旧列表的编号, 插入的位置为-1, 修改的位置取反再减一.
+     */
+    private static final class Recorder implements ListDiffer.ListUpdateCallback {
+        final List<Integer> positions = new ArrayList<>();
+        int inserted;
+        int removed;
+        int changed;
+
+        Recorder(int size) {
+            for (int i = 0; i < size; ++i) {
+                positions.add(i);
+            }
+        }
+
+        @Override
+        public void onInserted(int position, int count) {
+            inserted += count;
+            positions.addAll(position, Collections.nCopies(count, -1));
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            removed += count;
+            for (int i = 0; i < count; ++i) {
+                int old = positions.remove(position);
+                assertTrue("removed an inserted item", old >= 0);
+            }
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            changed += count;
+            for (int i = position; i < position + count; ++i) {
+                int old = positions.get(i);
+                assertTrue("changed an inserted item", old >= 0);
+                positions.set(i, -old - 2);
+            }
+        }
+    }
+
+    @Test
+    public void sameList() {
+        List<String> list = Arrays.asList("a1", "b1", "c1");
+        ListDiffer.DiffResult result = ListDiffer.diff(list, new ArrayList<>(list), COMPARATOR);
+        assertFalse(result.hasChanges());
+        Recorder recorder = new Recorder(list.size());
+        result.dispatchUpdatesTo(recorder);
+        assertEquals(0, recorder.inserted + recorder.removed + recorder.changed);
+    }
+
+    @Test
+    public void emptyLists() {
+        List<String> empty = Collections.emptyList();
+        assertFalse(ListDiffer.diff(empty, empty, COMPARATOR).hasChanges());
+        check(empty, Arrays.asList("a1", "b1"));
+        check(Arrays.asList("a1", "b1"), empty);
+    }
+
+    @Test
+    public void insertRemoveChange() {
+        List<String> oldList = Arrays.asList("a1", "b1", "c1", "d1");
+        List<String> newList = Arrays.asList("a1", "c2", "x1", "d1", "e1");
+        Recorder recorder = check(oldList, newList);
+        assertEquals(2, recorder.inserted);
+        assertEquals(1, recorder.removed);
+        assertEquals(1, recorder.changed);
+    }
+
+    @Test
+    public void move() {
+        Recorder recorder = check(Arrays.asList("a1", "b1", "c1", "d1"),
+                Arrays.asList("d1", "a1", "b1", "c1"));
+        assertEquals(1, recorder.inserted);
+        assertEquals(1, recorder.removed);
+    }
+
+    @Test
+    public void randomLists() {
+        Random random = new Random(42);
+        for (int round = 0; round < 2000; ++round) {
+            List<String> oldList = randomList(random);
+            List<String> newList = randomList(random);
+            check(oldList, newList);
+        }
+    }
+
+    private static List<String> randomList(Random random) {
+        int size = random.nextInt(30);
+        List<String> list = new ArrayList<>(size);
+        for (int i = 0; i < size; ++i) {
+            // 较小的字母表, 产生较多重复和公共子序列
+            list.add("" + (char) ('a' + random.nextInt(6)) + random.nextInt(3));
+        }
+        return list;
+    }
+
+    /**
+     * 检查回调能把旧列表变成新列表, 位置对应关系正确, 并且编辑次数最少.
+     */
+    private static Recorder check(List<String> oldList, List<String> newList) {
+        ListDiffer.DiffResult result = ListDiffer.diff(oldList, newList, COMPARATOR);
+        Recorder recorder = new Recorder(oldList.size());
+        result.dispatchUpdatesTo(recorder);
+        String message = oldList + " -> " + newList;
+        assertEquals(message, newList.size(), recorder.positions.size());
+
+        int kept = 0;
+        for (int i = 0; i < newList.size(); ++i) {
+            int value = recorder.positions.get(i);
+            if (value == -1) {
+                continue;
+            }
+            boolean changed = value < -1;
+            int old = changed ? -value - 2 : value;
+            kept++;
+            assertEquals(message, i, result.convertOldPositionToNew(old));
+            assertTrue(message, COMPARATOR.areItemsTheSame(oldList.get(old), newList.get(i)));
+            assertEquals(message, changed, !oldList.get(old).equals(newList.get(i)));
+        }
+        int lcs = lcs(oldList, newList);
+        assertEquals(message, lcs, kept);
+        assertEquals(message, oldList.size() - lcs, recorder.removed);
+        assertEquals(message, newList.size() - lcs, recorder.inserted);
+        assertEquals(message, recorder.inserted + recorder.removed + recorder.changed > 0,
+                result.hasChanges());
+        return recorder;
+    }
+
+    private static int lcs(List<String> a, List<String> b) {
+        int[][] table = new int[a.size() + 1][b.size() + 1];
+        for (int i = a.size() - 1; i >= 0; --i) {
+            for (int j = b.size() - 1; j >= 0; --j) {
+                table[i][j] = COMPARATOR.areItemsTheSame(a.get(i), b.get(j))
+                        ? table[i + 1][j + 1] + 1 : Math.max(table[i + 1][j], table[i][j + 1]);
+            }
+        }
+        return table[0][0];
+    }
+}
@@ -0,0 +1,183 @@
+package code.jesse.palette.adapter;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author zhulantian@gmail.com
+ */
+public class PagedListTest {
+
+    private static final Executor DIRECT = new Executor() {
+        @Override
+        public void execute(Runnable command) {
+            command.run();
+        }
+    };
+
+    /**
+     * 共total项, 第i项为"item" + i.
+     */
+    private static final class Loader implements PagedList.PageLoader<String> {
+        final int total;
+        int calls;
+        boolean failing;
+
+        Loader(int total) {
+            this.total = total;
+        }
+
+        @Override
+        public List<String> loadPage(int page, int pageSize) {
+            calls++;
+            if (failing) {
+                throw new IllegalStateException("network error");
+            }
+            List<String> items = new ArrayList<>();
+            for (int i = page * pageSize; i < Math.min(total, (page + 1) * pageSize); ++i) {
+                items.add("item" + i);
+            }
+            return items;
+        }
+    }
+
+    private static final class Recorder implements ListDiffer.ListUpdateCallback {
+        final List<String> events = new ArrayList<>();
+
+        @Override
+        public void onInserted(int position, int count) {
+            events.add("insert " + position + " " + count);
+        }
+
+        @Override
+        public void onRemoved(int position, int count) {
+            events.add("remove " + position + " " + count);
+        }
+
+        @Override
+        public void onChanged(int position, int count) {
+            events.add("change " + position + " " + count);
+        }
+    }
+
+    private static PagedList<String> build(Loader loader, int maxResidentPages) {
+        return PagedList.builder(loader)
+                .pageSize(10)
+                .prefetchDistance(1)
+                .maxResidentPages(maxResidentPages)
+                .executor(DIRECT)
+                .notifyExecutor(DIRECT)
+                .build();
+    }
+
+    @Test
+    public void loadsPagesUntilEnd() {
+        Loader loader = new Loader(25);
+        PagedList<String> list = build(loader, 10);
+        Recorder recorder = new Recorder();
+        list.setCallback(recorder);
+        assertEquals(10, list.size());
+        assertFalse(list.isEndReached());
+
+        assertEquals("item9", list.get(9));
+        assertEquals(20, list.size());
+        assertEquals("item19", list.get(19));
+        assertEquals(25, list.size());
+        assertTrue(list.isEndReached());
+        assertEquals(Arrays.asList("insert 10 10", "insert 20 5"), recorder.events);
+
+        int calls = loader.calls;
+        list.get(24);
+        assertEquals(calls, loader.calls);
+    }
+
+    @Test
+    public void dropsFarthestPageAndReloads() {
+        Loader loader = new Loader(100);
+        PagedList<String> list = build(loader, 2);
+        list.get(9);
+        list.get(19);
+        assertEquals(30, list.size());
+        assertEquals(2, list.getResidentPageCount());
+        assertEquals(1, list.getDroppedPageCount());
+        assertFalse(list.isLoaded(0));
+        assertNull(list.peek(0));
+
+        Recorder recorder = new Recorder();
+        list.setCallback(recorder);
+        assertNull(list.get(0));
+        assertEquals("item0", list.peek(0));
+        assertEquals(Arrays.asList("change 0 10"), recorder.events);
+        assertEquals(2, list.getResidentPageCount());
+        // 最后一页不会被丢弃
+        assertTrue(list.isLoaded(29));
+        assertFalse(list.isLoaded(10));
+    }
+
+    @Test
+    public void failedPageWaitsForRetry() {
+        Loader loader = new Loader(30);
+        PagedList<String> list = build(loader, 10);
+        loader.failing = true;
+        list.get(9);
+        assertTrue(list.hasFailedPages());
+        assertEquals(10, list.size());
+
+        int calls = loader.calls;
+        list.get(9);
+        list.get(8);
+        assertEquals(calls, loader.calls);
+
+        loader.failing = false;
+        list.retry();
+        assertFalse(list.hasFailedPages());
+        assertEquals(20, list.size());
+        assertEquals("item10", list.get(10));
+    }
+
+    @Test
+    public void appendWithoutLoader() {
+        PagedList<String> list = PagedList.<String>builder(null)
+                .pageSize(2)
+                .maxResidentPages(2)
+                .executor(DIRECT)
+                .notifyExecutor(DIRECT)
+                .build();
+        Recorder recorder = new Recorder();
+        list.setCallback(recorder);
+        assertTrue(list.isEndReached());
+        list.append(Arrays.asList("a", "b", "c"));
+        list.append(Arrays.asList("d", "e"));
+        assertEquals(Arrays.asList("a", "b", "c", "d", "e"), new ArrayList<>(list));
+        // 没有PageLoader时不丢弃
+        assertEquals(3, list.getResidentPageCount());
+        assertEquals(Arrays.asList("insert 0 3", "insert 3 2"), recorder.events);
+    }
+
+    @Test
+    public void appendWithLoader() {
+        PagedList<String> list = build(new Loader(30), 10);
+        try {
+            list.append(Arrays.asList("a"));
+            fail();
+        } catch (IllegalStateException expected) {
+            // expected
+        }
+        assertEquals(10, list.size());
+    }
+
+    @Test(expected = IndexOutOfBoundsException.class)
+    public void peekOutOfRange() {
+        build(new Loader(5), 10).peek(5);
+    }
+}
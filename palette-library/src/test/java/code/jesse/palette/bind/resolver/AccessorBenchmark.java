@@ -0,0 +1,51 @@
+package code.jesse.palette.bind.resolver;
+
+import java.util.Arrays;
+import java.util.List;
+
+import code.jesse.palette.Benchmark;
+import code.jesse.palette.tools.JavaCalls;
+
+/**
+ * 比较路径求值时每一段都通过{@link JavaCalls#getField(Object, String)}查找字段缓存, 与表达式中缓存的
+ * {@link Accessor}的开销.
+ *
+ * @author zhulantian@gmail.com
+ */
+public class AccessorBenchmark {
+
+    static class Base {
+        private String name = "jesse";
+    }
+
+    static class User extends Base {
+    }
+
+    static class Feed {
+        private List<User> users = Arrays.asList(new User(), new User());
+    }
+
+    static class Card {
+        private Feed feed = new Feed();
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Card card = new Card();
+        final PathExpression expression = PathExpression.compile("feed.users[1].name");
+        Benchmark.report(
+                new Benchmark("${.feed.users[1].name} (JavaCalls)") {
+                    @Override
+                    protected Object run() {
+                        Feed feed = JavaCalls.getField(card, "feed");
+                        List<User> users = JavaCalls.getField(feed, "users");
+                        return JavaCalls.getField(users.get(1), "name");
+                    }
+                },
+                new Benchmark("${.feed.users[1].name} (Accessor)") {
+                    @Override
+                    protected Object run() {
+                        return expression.evaluate(card);
+                    }
+                });
+    }
+}
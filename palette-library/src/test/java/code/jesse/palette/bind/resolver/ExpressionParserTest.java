@@ -0,0 +1,233 @@
+package code.jesse.palette.bind.resolver;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+/**
+ * @author zhulantian@gmail.com
+ */
+public class ExpressionParserTest {
+
+    static class User {
+        String name;
+        int age;
+        User friend;
+
+        User(String name, int age) {
+            this.name = name;
+            this.age = age;
+        }
+    }
+
+    static class Feed {
+        String title;
+        User user;
+        List<String> tags;
+        int[] scores;
+        Map<String, Integer> counts;
+    }
+
+    private static Feed feed() {
+        Feed feed = new Feed();
+        feed.title = "Hello Palette";
+        feed.user = new User("jesse", 30);
+        feed.user.friend = new User("lan", 28);
+        feed.tags = Arrays.asList("a", "b");
+        feed.scores = new int[] {3, 5};
+        feed.counts = Collections.singletonMap("like", 7);
+        return feed;
+    }
+
+    private static Object eval(String bindValue) {
+        return ExpressionParser.parse(bindValue).evaluate(feed());
+    }
+
+    @Test
+    public void textWithoutExpressionIsConstant() {
+        Expression expression = ExpressionParser.parse("hello, mvp!");
+        assertTrue(expression instanceof ConstantExpression);
+        assertEquals("hello, mvp!", expression.evaluate(null));
+    }
+
+    @Test
+    public void simplePathCompilesToPathExpression() {
+        assertTrue(ExpressionParser.parse("${.user.friend.name}") instanceof PathExpression);
+        assertEquals("lan", eval("${.user.friend.name}"));
+        assertEquals(30, eval("${.user.age}"));
+        assertEquals("b", eval("${.tags[1]}"));
+        assertEquals(5, eval("${.scores[1]}"));
+        assertNull(eval("${.missing.name}"));
+    }
+
+    @Test
+    public void indexOutOfRangeIsNullForPathsAndExpressions() {
+        assertNull(eval("${.tags[5]}"));
+        assertNull(eval("${.scores[2]}"));
+        assertNull(eval("${.tags[1 + 4]}"));
+        assertNull(eval("${.scores[-1]}"));
+        assertEquals("b", eval("${.tags[2 - 1]}"));
+        assertEquals(7, eval("${.counts['like']}"));
+    }
+
+    @Test
+    public void operatorsFollowPrecedence() {
+        assertEquals(7, eval("${1 + 2 * 3}"));
+        assertEquals(9, eval("${(1 + 2) * 3}"));
+        assertEquals(1, eval("${7 % 3}"));
+        assertEquals(2.5, eval("${5 / 2.0}"));
+        assertNull(eval("${1 / 0}"));
+        assertEquals(-30, eval("${-.user.age}"));
+        assertEquals(Boolean.TRUE, eval("${.user.age > 18 && .user.name == 'jesse'}"));
+        assertEquals(Boolean.FALSE, eval("${!(.user.age >= 30)}"));
+        assertEquals(Boolean.TRUE, eval("${.user.age != 31 || .missing}"));
+        assertEquals(3000000000L, eval("${3000000000}"));
+    }
+
+    @Test
+    public void conditionalAndTemplate() {
+        assertEquals("adult", eval("${.user.age >= 18 ? 'adult' : 'child'}"));
+        assertEquals("@jesse", eval("${'@' + .user.name}"));
+        assertEquals("Hi jesse, 30!", eval("Hi ${.user.name}, ${.user.age}!"));
+        assertEquals("Hi !", eval("Hi ${.missing}!"));
+    }
+
+    @Test
+    public void constantsAreFolded() {
+        Expression expression = ExpressionParser.parse("${upper('a') + (1 + 2)}");
+        assertTrue(expression instanceof Nodes.Node);
+        assertTrue(((Nodes.Node) expression).isConstant());
+        assertEquals("A3", expression.evaluate(null));
+        assertTrue(ExpressionParser.parse("a${1 + 1}b") instanceof ConstantExpression);
+    }
+
+    @Test
+    public void builtInFunctions() {
+        assertEquals("Hello", eval("${substring(.title, 0, 5)}").toString());
+        assertEquals("Palette", eval("${substring(.title, 6)}").toString());
+        assertEquals(2, eval("${length(.tags)}"));
+        assertEquals(Boolean.TRUE, eval("${isEmpty(.missing)}"));
+        assertEquals("JESSE", eval("${upper(.user.name)}"));
+        assertEquals(30, eval("${max(.user.age, .user.friend.age)}"));
+        assertEquals(28, eval("${min(.user.age, .user.friend.age)}"));
+        assertEquals(3, eval("${abs(-3)}"));
+    }
+
+    @Test
+    public void argumentCountIsCheckedWhenParsing() {
+        assertParseError("${substring(.title)}", "substring() takes 2 to 3 arguments, but got 1");
+        assertParseError("${max(1, 2, 3)}", "max() takes 2 arguments, but got 3");
+        assertParseError("${nothing(.title)}", "unknown function 'nothing'");
+    }
+
+    @Test
+    public void syntaxErrorsAreReported() {
+        assertParseError("${(.user}", "')' expected");
+        assertParseError("${.user.+}", "identifier expected");
+        assertParseError("${1 +}", "unexpected end");
+        assertParseError("${'abc}", "unclosed '${'");
+        assertParseError("Price ${.price", "unclosed '${'");
+    }
+
+    @Test
+    public void nestedCallsShareNoState() throws Exception {
+        final AtomicInteger calls = new AtomicInteger();
+        Functions.register("concat", new Function() {
+            @Override
+            public Object apply(Object[] args) {
+                calls.incrementAndGet();
+                StringBuilder builder = new StringBuilder();
+                for (Object arg : args) {
+                    builder.append(arg);
+                }
+                return builder.toString();
+            }
+        });
+        final Expression expression =
+                ExpressionParser.parse("${concat(.user.name, concat('-', .user.age), '!')}");
+        assertEquals("jesse-30!", expression.evaluate(feed()));
+
+        final Throwable[] failure = new Throwable[1];
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; ++t) {
+            final int id = t;
+            threads[t] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    Feed feed = feed();
+                    feed.user.name = "user" + id;
+                    String expected = "user" + id + "-30!";
+                    for (int i = 0; i < 20000; ++i) {
+                        Object value = expression.evaluate(feed);
+                        if (!expected.equals(value)) {
+                            failure[0] = new AssertionError(expected + " != " + value);
+                            return;
+                        }
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        if (failure[0] != null) {
+            throw new AssertionError(failure[0]);
+        }
+        assertTrue(calls.get() > 0);
+    }
+
+    @Test
+    public void fixedArityCallsSkipArgumentArray() {
+        Functions.register("pair", 2, 4, new Function() {
+            @Override
+            public Object apply(Object[] args) {
+                return "array:" + args.length;
+            }
+
+            @Override
+            public Object apply(Object arg0, Object arg1) {
+                return arg0 + "," + arg1;
+            }
+        });
+        assertEquals("Hello Palette,30", eval("${pair(.title, .user.age)}"));
+        // 没有覆盖的参数数目退回到数组
+        assertEquals("array:3", eval("${pair(.title, .user.age, 1)}"));
+        assertEquals("array:4", eval("${pair(.title, .user.age, 1, 2)}"));
+    }
+
+    @Test
+    public void dataSourcesAreResolvedAtEvaluation() {
+        Expression expression = ExpressionParser.parse("${app.name + '/' + .user.name}");
+        DataSources.register("app", new DataSource() {
+            @Override
+            public Object get(String name) {
+                return "palette";
+            }
+        });
+        try {
+            assertEquals("palette/jesse", expression.evaluate(feed()));
+        } finally {
+            DataSources.unregister("app");
+        }
+        assertEquals("/jesse", expression.evaluate(feed()));
+    }
+
+    private static void assertParseError(String bindValue, String message) {
+        try {
+            ExpressionParser.parse(bindValue);
+            fail("expected error for " + bindValue);
+        } catch (IllegalArgumentException e) {
+            assertTrue(e.getMessage(), e.getMessage().endsWith(message));
+        }
+    }
+}
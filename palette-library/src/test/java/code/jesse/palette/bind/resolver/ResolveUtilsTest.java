@@ -0,0 +1,57 @@
+package code.jesse.palette.bind.resolver;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+
+/**
+ * @author zhulantian@gmail.com
+ */
+public class ResolveUtilsTest {
+
+    static class Model {
+        String title = "palette";
+        List<String> tags = Arrays.asList("a", "b");
+    }
+
+    @Test
+    public void compiledExpressionsAreCached() {
+        assertSame(ResolveUtils.compile("${.title}"), ResolveUtils.compile("${.title}"));
+    }
+
+    @Test
+    public void malformedBindValueIsText() {
+        assertEquals("Price ${.price", ResolveUtils.compile("Price ${.price").evaluate(new Model()));
+        assertEquals("${.title +}", ResolveUtils.compile("${.title +}").evaluate(new Model()));
+    }
+
+    @Test
+    public void resolveValueReadsPaths() {
+        assertEquals("palette", ResolveUtils.resolveValue(new Model(), "title"));
+        assertEquals("b", ResolveUtils.resolveValue(new Model(), "tags[1]"));
+        assertNull(ResolveUtils.resolveValue(new Model(), "tags[2]"));
+    }
+
+    static class RegisteredModel {
+        String title = "field";
+    }
+
+    @Test
+    public void registeredAccessorTakesPriority() {
+        Expression expression = ResolveUtils.compile("${.title}");
+        assertEquals("field", expression.evaluate(new RegisteredModel()));
+        Accessors.register(RegisteredModel.class, "title", new Accessor() {
+            @Override
+            public Object get(Object target) {
+                return "registered";
+            }
+        });
+        // 表达式中缓存的访问器随注册失效
+        assertEquals("registered", expression.evaluate(new RegisteredModel()));
+    }
+}
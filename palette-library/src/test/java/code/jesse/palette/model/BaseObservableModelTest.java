@@ -0,0 +1,52 @@
+package code.jesse.palette.model;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * @author zhulantian@gmail.com
+ */
+public class BaseObservableModelTest {
+
+    static class Model extends BaseObservableModel {
+        void change(int propertyId) {
+            notifyPropertyChanged(propertyId);
+        }
+    }
+
+    @Test
+    public void notifiesPropertyFlag() {
+        final List<Long> flags = new ArrayList<>();
+        Model model = new Model();
+        model.addOnModelChangedListener(new ObservableModel.OnModelChangedListener() {
+            @Override
+            public void onModelChanged(ObservableModel m, long dirtyFlags) {
+                flags.add(dirtyFlags);
+            }
+        });
+        model.change(0);
+        model.change(63);
+        assertEquals(Arrays.asList(1L, Long.MIN_VALUE), flags);
+        assertEquals(2, model.getVersion());
+    }
+
+    @Test
+    public void rejectsPropertyOutOfRange() {
+        Model model = new Model();
+        for (int propertyId : new int[]{-1, 64, 65}) {
+            try {
+                model.change(propertyId);
+                fail("accepted " + propertyId);
+            } catch (IllegalArgumentException expected) {
+                // expected
+            }
+        }
+        assertEquals(0, model.getVersion());
+    }
+}
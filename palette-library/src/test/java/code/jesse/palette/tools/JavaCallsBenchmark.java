@@ -0,0 +1,114 @@
+package code.jesse.palette.tools;
+
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Method;
+
+import code.jesse.palette.Benchmark;
+
+/**
+ * 比较JavaCalls的缓存查找和每次都重新查找(缓存之前的实现)的开销.
+ *
+ * @author zhulantian@gmail.com
+ */
+public class JavaCallsBenchmark {
+
+    static class Base {
+        private int add(Integer a, Integer b) {
+            return a + b;
+        }
+    }
+
+    static class Child extends Base {
+        private int scale(Integer a) {
+            return a * 2;
+        }
+    }
+
+    public static class Bean {
+        private final String mName;
+        private final int mAge;
+
+        public Bean(String name, Integer age) {
+            mName = name;
+            mAge = age;
+        }
+
+    }
+
+    static class Holder {
+        private final int mCount;
+        private final String mLabel;
+
+        Holder(int count, String label) {
+            mCount = count;
+            mLabel = label;
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        final Child child = new Child();
+        final Integer one = 1;
+        final Integer two = 2;
+        Benchmark.report(
+                new Benchmark("callMethod, inherited (uncached)") {
+                    @Override
+                    protected Object run() throws Exception {
+                        Method method = findUncached(Child.class, "add", Integer.class, Integer.class);
+                        method.setAccessible(true);
+                        return method.invoke(child, one, two);
+                    }
+                },
+                new Benchmark("callMethod, inherited (JavaCalls)") {
+                    @Override
+                    protected Object run() throws Exception {
+                        return JavaCalls.callMethodOrThrow(child, "add", one, two);
+                    }
+                },
+                new Benchmark("newEmptyInstance (uncached)") {
+                    @Override
+                    protected Object run() throws Exception {
+                        Constructor<?> constructor = Holder.class.getDeclaredConstructors()[0];
+                        constructor.setAccessible(true);
+                        Class<?>[] types = constructor.getParameterTypes();
+                        Object[] params = new Object[types.length];
+                        for (int i = 0; i < types.length; ++i) {
+                            params[i] = types[i] == int.class ? 0 : null;
+                        }
+                        return constructor.newInstance(params);
+                    }
+                },
+                new Benchmark("newEmptyInstance (JavaCalls)") {
+                    @Override
+                    protected Object run() throws Exception {
+                        return JavaCalls.newEmptyInstanceOrThrow(Holder.class);
+                    }
+                },
+                new Benchmark("newInstance(Class, args) (uncached)") {
+                    @Override
+                    protected Object run() throws Exception {
+                        return Bean.class.getConstructor(String.class, Integer.class).newInstance("a", one);
+                    }
+                },
+                new Benchmark("newInstance(Class, args) (JavaCalls)") {
+                    @Override
+                    protected Object run() throws Exception {
+                        return JavaCalls.newInstanceOrThrow(Bean.class, "a", one);
+                    }
+                });
+    }
+
+    /**
+     * 缓存之前JavaCalls的查找方式: 每次都沿继承链遍历getDeclaredMethods().
+     */
+    private static Method findUncached(Class<?> clazz, String name, Class<?>... types) {
+        for (Class<?> cls = clazz; cls != null; cls = cls.getSuperclass()) {
+            for (Method method : cls.getDeclaredMethods()) {
+                if (method.getName().equals(name)
+                        && java.util.Arrays.equals(method.getParameterTypes(), types)) {
+                    return method;
+                }
+            }
+        }
+        return null;
+    }
+}
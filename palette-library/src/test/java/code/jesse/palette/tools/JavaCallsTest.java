@@ -0,0 +1,128 @@
+package code.jesse.palette.tools;
+
+import org.junit.Test;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.fail;
+
+/**
+ * @author zhulantian@gmail.com
+ */
+public class JavaCallsTest {
+
+    static class Base {
+        private String mName = "base";
+
+        private String describe(Integer value) {
+            return "int:" + value;
+        }
+
+        private String describe(String value) {
+            return "string:" + value;
+        }
+    }
+
+    static class Child extends Base {
+        private int mAge = 3;
+    }
+
+    public static class Bean {
+        final String name;
+
+        public Bean(String name) {
+            this.name = name;
+        }
+
+        public Bean(Integer count) {
+            this.name = "#" + count;
+        }
+    }
+
+    static class Holder {
+        final int count;
+        final String label;
+
+        Holder(int count, String label) {
+            this.count = count;
+            this.label = label;
+        }
+    }
+
+    @Test
+    public void findsInheritedFieldAndCachesIt() {
+        Field first = JavaCalls.findField(Child.class, "mName");
+        assertNotNull(first);
+        assertSame(first, JavaCalls.findField(Child.class, "mName"));
+        assertEquals("base", JavaCalls.getField(new Child(), "mName"));
+        assertEquals(3, (int) JavaCalls.<Integer>getField(new Child(), "mAge"));
+    }
+
+    @Test
+    public void reportsFieldMissOnce() {
+        final List<String> misses = new ArrayList<>();
+        JavaCalls.setOnFieldMissListener(new JavaCalls.OnFieldMissListener() {
+            @Override
+            public void onFieldMiss(Class<?> clazz, String fieldName) {
+                misses.add(fieldName);
+            }
+        });
+        try {
+            assertNull(JavaCalls.getField(new Child(), "mMissing"));
+            assertNull(JavaCalls.getField(new Child(), "mMissing"));
+            assertEquals(1, misses.size());
+        } finally {
+            JavaCalls.setOnFieldMissListener(null);
+        }
+    }
+
+    @Test
+    public void resolvesOverloadsByArgumentType() throws Exception {
+        Child child = new Child();
+        for (int i = 0; i < 2; ++i) {
+            assertEquals("int:1", JavaCalls.callMethodOrThrow(child, "describe", 1));
+            assertEquals("string:a", JavaCalls.callMethodOrThrow(child, "describe", "a"));
+        }
+    }
+
+    @Test
+    public void cachedMethodMissStillThrows() throws Exception {
+        for (int i = 0; i < 2; ++i) {
+            try {
+                JavaCalls.callMethodOrThrow(new Child(), "describe", 1L);
+                fail();
+            } catch (NoSuchMethodException expected) {
+                // expected
+            }
+        }
+    }
+
+    @Test
+    public void newInstanceMatchesConstructor() throws Exception {
+        for (int i = 0; i < 2; ++i) {
+            assertEquals("a", JavaCalls.<Bean>newInstanceOrThrow(Bean.class, "a").name);
+            assertEquals("#2", JavaCalls.<Bean>newInstanceOrThrow(Bean.class, 2).name);
+        }
+        try {
+            JavaCalls.newInstanceOrThrow(Bean.class, 1L);
+            fail();
+        } catch (NoSuchMethodException expected) {
+            // expected
+        }
+    }
+
+    @Test
+    public void newEmptyInstanceUsesDefaultArguments() {
+        for (int i = 0; i < 2; ++i) {
+            Holder holder = JavaCalls.newEmptyInstance(Holder.class);
+            assertEquals(0, holder.count);
+            assertNull(holder.label);
+        }
+    }
+}